@@ -0,0 +1,57 @@
+package it.sephiroth.android.library.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link MathUtils} helpers used by the scrolling code, on a fixed set of random inputs.
+ */
+@State ( Scope.Thread )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.NANOSECONDS )
+public class MathUtilsBenchmark {
+
+	private static final int VALUE_COUNT = 1024;
+
+	private final float[] mValues = new float[VALUE_COUNT];
+	private int mIndex;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random( 42 );
+		for ( int i = 0; i < VALUE_COUNT; i++ ) {
+			mValues[i] = ( random.nextFloat() - 0.5f ) * 4000;
+		}
+	}
+
+	@Benchmark
+	public int constrain() {
+		return MathUtils.constrain( (int) mValues[mIndex++ & ( VALUE_COUNT - 1 )], -1000, 1000 );
+	}
+
+	@Benchmark
+	public float dist() {
+		final int i = mIndex++;
+		return MathUtils.dist( mValues[i & ( VALUE_COUNT - 1 )], mValues[( i + 1 ) & ( VALUE_COUNT - 1 )],
+				mValues[( i + 2 ) & ( VALUE_COUNT - 1 )], mValues[( i + 3 ) & ( VALUE_COUNT - 1 )] );
+	}
+
+	@Benchmark
+	public float lerp() {
+		final int i = mIndex++;
+		return MathUtils.lerp( mValues[i & ( VALUE_COUNT - 1 )], mValues[( i + 1 ) & ( VALUE_COUNT - 1 )], 0.25f );
+	}
+
+	@Benchmark
+	public float exp() {
+		return MathUtils.exp( mValues[mIndex++ & ( VALUE_COUNT - 1 )] / 1000 );
+	}
+}
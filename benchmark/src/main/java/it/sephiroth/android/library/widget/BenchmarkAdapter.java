@@ -0,0 +1,44 @@
+package it.sephiroth.android.library.widget;
+
+import android.widget.Adapter;
+import android.widget.ExpandableListAdapter;
+
+/**
+ * Adapter without views which feeds the library code measured by the benchmarks. The item and group ids are the given ones
+ * and every group has the same number of children.
+ */
+final class BenchmarkAdapter implements Adapter, ExpandableListAdapter {
+
+	private final long[] mIds;
+	private final int mChildrenPerGroup;
+
+	BenchmarkAdapter( long[] ids, int childrenPerGroup ) {
+		mIds = ids;
+		mChildrenPerGroup = childrenPerGroup;
+	}
+
+	@Override
+	public int getCount() {
+		return mIds.length;
+	}
+
+	@Override
+	public long getItemId( int position ) {
+		return mIds[position];
+	}
+
+	@Override
+	public int getGroupCount() {
+		return mIds.length;
+	}
+
+	@Override
+	public int getChildrenCount( int groupPosition ) {
+		return mChildrenPerGroup;
+	}
+
+	@Override
+	public long getGroupId( int groupPosition ) {
+		return mIds[groupPosition];
+	}
+}
@@ -0,0 +1,128 @@
+package it.sephiroth.android.library.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The flat position mapping of {@link ExpandableHListConnector}, through the {@link GroupFlatPositionIndex} it delegates to:
+ * <ul>
+ * <li>{@link #getGroup()} is the lookup done by getUnflattenedPos for every item the list lays out</li>
+ * <li>{@link #getFlatPosition()} is the lookup done by getFlattenedPos</li>
+ * <li>{@link #expandCollapse()} is the update done by expandGroup and collapseGroup</li>
+ * <li>{@link #rebuild()} is the index rebuild done by refreshExpGroupMetadataList when the children counts are refreshed:
+ * one adapter getChildrenCount call for every expanded group, then the O(n) build. The group id sync which may precede it is
+ * measured by {@link IdLookupBenchmark}</li>
+ * </ul>
+ */
+@State ( Scope.Thread )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.NANOSECONDS )
+public class FlatPositionBenchmark {
+
+	private static final int LOOKUP_COUNT = 1024;
+
+	@Param ( { "100", "10000", "100000" } )
+	public int groupCount;
+
+	/** fraction of the groups which are expanded */
+	@Param ( { "0", "0.1", "0.5", "1" } )
+	public float expandedRatio;
+
+	@Param ( { "8" } )
+	public int childrenPerGroup;
+
+	private final GroupFlatPositionIndex mIndex = new GroupFlatPositionIndex();
+	private BenchmarkAdapter mAdapter;
+
+	private int[] mExpandedGroups;
+	private final int[] mFlatPositions = new int[LOOKUP_COUNT];
+	private final int[] mGroups = new int[LOOKUP_COUNT];
+	private int mLookup;
+	private int mToggle;
+	private boolean mToggled;
+	private int mToggledChildCount;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random( 42 );
+		final int expandedCount = Math.round( groupCount * expandedRatio );
+
+		// the first expandedCount groups of a shuffled list, in ascending order like the expanded group metadata
+		final int[] groups = new int[groupCount];
+		for ( int i = 0; i < groupCount; i++ ) {
+			groups[i] = i;
+		}
+		for ( int i = groupCount - 1; i > 0; i-- ) {
+			final int j = random.nextInt( i + 1 );
+			final int tmp = groups[i];
+			groups[i] = groups[j];
+			groups[j] = tmp;
+		}
+		mExpandedGroups = Arrays.copyOf( groups, expandedCount );
+		Arrays.sort( mExpandedGroups );
+
+		final long[] ids = new long[groupCount];
+		for ( int i = 0; i < groupCount; i++ ) {
+			ids[i] = i;
+		}
+		mAdapter = new BenchmarkAdapter( ids, childrenPerGroup );
+
+		rebuild();
+
+		final int flatCount = groupCount + mIndex.getTotalChildCount();
+		for ( int i = 0; i < LOOKUP_COUNT; i++ ) {
+			mFlatPositions[i] = random.nextInt( flatCount );
+			mGroups[i] = random.nextInt( groupCount );
+		}
+	}
+
+	@Benchmark
+	public int getGroup() {
+		return mIndex.getGroup( mFlatPositions[mLookup++ & ( LOOKUP_COUNT - 1 )] );
+	}
+
+	@Benchmark
+	public int getFlatPosition() {
+		return mIndex.getFlatPosition( mGroups[mLookup++ & ( LOOKUP_COUNT - 1 )] );
+	}
+
+	/**
+	 * Expands or collapses a group, and restores it on the next invocation so that the expansion ratio stays the same
+	 */
+	@Benchmark
+	public int expandCollapse() {
+		final int group = mGroups[mToggle & ( LOOKUP_COUNT - 1 )];
+		if ( mToggled ) {
+			mIndex.setChildCount( group, mToggledChildCount );
+			mToggle++;
+		} else {
+			mToggledChildCount = mIndex.getChildCount( group );
+			mIndex.setChildCount( group, mToggledChildCount == 0 ? childrenPerGroup : 0 );
+		}
+		mToggled = !mToggled;
+		return mIndex.getTotalChildCount();
+	}
+
+	@Benchmark
+	public int rebuild() {
+		final GroupFlatPositionIndex index = mIndex;
+		final BenchmarkAdapter adapter = mAdapter;
+		index.reset( adapter.getGroupCount() );
+		final int[] expanded = mExpandedGroups;
+		for ( int i = 0; i < expanded.length; i++ ) {
+			index.putChildCount( expanded[i], adapter.getChildrenCount( expanded[i] ) );
+		}
+		index.build();
+		return index.getTotalChildCount();
+	}
+}
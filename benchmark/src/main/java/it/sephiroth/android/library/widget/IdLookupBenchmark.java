@@ -0,0 +1,131 @@
+package it.sephiroth.android.library.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import it.sephiroth.android.library.util.IntBitSet;
+import it.sephiroth.android.library.util.LongIntHashMap;
+
+/**
+ * The id to position search done by AdapterView.findSyncPosition after a data set change, and the expanded group lookups of
+ * the expandable list connector. The ids are read from a {@link BenchmarkAdapter}.
+ * <ul>
+ * <li>{@link #buildIdIndex()} is the first {@link ItemIdIndex#getPosition} call after a change, which indexes every id</li>
+ * <li>{@link #findPositionForId()} is every following {@link ItemIdIndex#getPosition} call</li>
+ * <li>{@link #scanForId()} is the search findSyncPosition falls back to without an index: a scan outward from the previous
+ * position of the item, over <var>moveDistance</var> positions. AdapterView needs the view classes, so the loop is copied
+ * here</li>
+ * <li>{@link #isGroupExpanded()} and {@link #isGroupIdExpanded()} are the connector expanded group queries</li>
+ * </ul>
+ */
+@State ( Scope.Thread )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.NANOSECONDS )
+public class IdLookupBenchmark {
+
+	private static final int LOOKUP_COUNT = 1024;
+
+	@Param ( { "100", "10000", "100000" } )
+	public int itemCount;
+
+	/** how many positions the synced item moved */
+	@Param ( { "1", "100" } )
+	public int moveDistance;
+
+	/** fraction of the groups which are expanded */
+	@Param ( { "0.1", "0.5" } )
+	public float expandedRatio;
+
+	private long[] mIds;
+	private BenchmarkAdapter mAdapter;
+	private final int[] mPositions = new int[LOOKUP_COUNT];
+	private final ItemIdIndex mIdIndex = new ItemIdIndex();
+
+	private final IntBitSet mExpandedGroups = new IntBitSet();
+	private final LongIntHashMap mExpandedGroupIds = new LongIntHashMap();
+
+	private int mLookup;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random( 42 );
+		mIds = new long[itemCount];
+		for ( int i = 0; i < itemCount; i++ ) {
+			mIds[i] = random.nextLong() & Long.MAX_VALUE;
+		}
+		for ( int i = 0; i < LOOKUP_COUNT; i++ ) {
+			mPositions[i] = random.nextInt( itemCount );
+		}
+		mAdapter = new BenchmarkAdapter( mIds, 0 );
+		buildIdIndex();
+
+		for ( int i = 0; i < itemCount; i++ ) {
+			if ( random.nextFloat() < expandedRatio ) {
+				mExpandedGroups.set( i );
+				mExpandedGroupIds.put( mIds[i], i );
+			}
+		}
+	}
+
+	@Benchmark
+	public int buildIdIndex() {
+		mIdIndex.invalidate();
+		return mIdIndex.getPosition( mAdapter, mIds[mPositions[mLookup++ & ( LOOKUP_COUNT - 1 )]] );
+	}
+
+	@Benchmark
+	public int findPositionForId() {
+		return mIdIndex.getPosition( mAdapter, mIds[mPositions[mLookup++ & ( LOOKUP_COUNT - 1 )]] );
+	}
+
+	@Benchmark
+	public int scanForId() {
+		final BenchmarkAdapter adapter = mAdapter;
+		final int count = adapter.getCount();
+		final int position = mPositions[mLookup++ & ( LOOKUP_COUNT - 1 )];
+		final long idToMatch = mIds[position];
+		final int seed = Math.max( 0, Math.min( count - 1, position + ( ( position & 1 ) == 0 ? moveDistance : -moveDistance ) ) );
+
+		// alternates after and before the seed, like findSyncPosition
+		int first = seed;
+		int last = seed;
+		int current = seed;
+		boolean next = false;
+		while ( true ) {
+			if ( adapter.getItemId( current ) == idToMatch ) {
+				return current;
+			}
+			final boolean hitLast = last == count - 1;
+			final boolean hitFirst = first == 0;
+			if ( hitLast && hitFirst ) {
+				return -1;
+			}
+			if ( hitFirst || ( next && !hitLast ) ) {
+				current = ++last;
+				next = false;
+			} else {
+				current = --first;
+				next = true;
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean isGroupExpanded() {
+		return mExpandedGroups.get( mPositions[mLookup++ & ( LOOKUP_COUNT - 1 )] );
+	}
+
+	@Benchmark
+	public boolean isGroupIdExpanded() {
+		return mExpandedGroupIds.containsKey( mIds[mPositions[mLookup++ & ( LOOKUP_COUNT - 1 )]] );
+	}
+}
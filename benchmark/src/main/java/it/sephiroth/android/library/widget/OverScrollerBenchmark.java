@@ -0,0 +1,70 @@
+package it.sephiroth.android.library.widget;
+
+import android.content.Context;
+import android.view.animation.AnimationUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fling physics of {@link OverScroller}: {@link #flingSetup()} measures the spline distance and duration computed when a
+ * fling starts, {@link #flingAnimation()} runs a whole fling frame by frame like the list FlingRunnable does, including the
+ * overscroll and spring back when <var>bounded</var> is set.
+ */
+@State ( Scope.Thread )
+@BenchmarkMode ( Mode.AverageTime )
+@OutputTimeUnit ( TimeUnit.MICROSECONDS )
+public class OverScrollerBenchmark {
+
+	private static final long FRAME_INTERVAL_MILLIS = 16;
+
+	/** upper bound of the frames of a single fling, in case the scroller never finishes */
+	private static final int MAX_FRAMES = 10000;
+
+	/** initial velocity in pixels per second */
+	@Param ( { "500", "4000", "20000" } )
+	public int velocity;
+
+	/** if true the content is 2000 pixels wide and the fling can reach its edge, otherwise it's unbounded */
+	@Param ( { "false", "true" } )
+	public boolean bounded;
+
+	private OverScroller mScroller;
+	private OverScroller.SplineOverScroller mSplineScroller;
+	private int mMaxX;
+
+	@Setup
+	public void setUp() {
+		final Context context = new Context();
+		mScroller = new OverScroller( context );
+		mSplineScroller = new OverScroller.SplineOverScroller( context );
+		mMaxX = bounded ? 2000 : Integer.MAX_VALUE;
+	}
+
+	@Benchmark
+	public void flingSetup() {
+		mSplineScroller.fling( 0, velocity, 0, mMaxX, 100 );
+	}
+
+	@Benchmark
+	public int flingAnimation() {
+		final OverScroller scroller = mScroller;
+		scroller.abortAnimation();
+		scroller.fling( 0, 0, velocity, 0, 0, mMaxX, 0, 0, 100, 0 );
+
+		long time = AnimationUtils.currentAnimationTimeMillis();
+		int frames = 0;
+		while ( scroller.computeScrollOffset( time ) && ++frames < MAX_FRAMES ) {
+			time += FRAME_INTERVAL_MILLIS;
+		}
+		return scroller.getCurrX() + frames;
+	}
+}
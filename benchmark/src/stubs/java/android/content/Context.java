@@ -0,0 +1,23 @@
+package android.content;
+
+import android.content.res.Resources;
+
+/**
+ * Benchmark stand-in, only provides the resources used to read the display density.
+ */
+public class Context {
+
+	private final Resources mResources;
+
+	public Context() {
+		this( new Resources() );
+	}
+
+	public Context( Resources resources ) {
+		mResources = resources;
+	}
+
+	public Resources getResources() {
+		return mResources;
+	}
+}
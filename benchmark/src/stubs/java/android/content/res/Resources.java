@@ -0,0 +1,15 @@
+package android.content.res;
+
+import android.util.DisplayMetrics;
+
+/**
+ * Benchmark stand-in, only provides the display metrics.
+ */
+public class Resources {
+
+	private final DisplayMetrics mMetrics = new DisplayMetrics();
+
+	public DisplayMetrics getDisplayMetrics() {
+		return mMetrics;
+	}
+}
@@ -0,0 +1,9 @@
+package android.hardware;
+
+/**
+ * Benchmark stand-in.
+ */
+public abstract class SensorManager {
+
+	public static final float GRAVITY_EARTH = 9.80665f;
+}
@@ -0,0 +1,9 @@
+package android.util;
+
+/**
+ * Benchmark stand-in, defaults to an xhdpi display.
+ */
+public class DisplayMetrics {
+
+	public float density = 2.0f;
+}
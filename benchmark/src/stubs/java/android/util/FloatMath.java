@@ -0,0 +1,13 @@
+package android.util;
+
+/**
+ * Benchmark stand-in.
+ */
+public class FloatMath {
+
+	private FloatMath() {}
+
+	public static float sqrt( float value ) {
+		return (float) Math.sqrt( value );
+	}
+}
@@ -0,0 +1,14 @@
+package android.util;
+
+/**
+ * Benchmark stand-in, prints to the standard error.
+ */
+public final class Log {
+
+	private Log() {}
+
+	public static int e( String tag, String msg ) {
+		System.err.println( tag + ": " + msg );
+		return 0;
+	}
+}
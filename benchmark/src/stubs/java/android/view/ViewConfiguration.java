@@ -0,0 +1,13 @@
+package android.view;
+
+/**
+ * Benchmark stand-in, with the framework default friction.
+ */
+public class ViewConfiguration {
+
+	private static final float SCROLL_FRICTION = 0.015f;
+
+	public static float getScrollFriction() {
+		return SCROLL_FRICTION;
+	}
+}
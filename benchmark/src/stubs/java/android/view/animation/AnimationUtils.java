@@ -0,0 +1,11 @@
+package android.view.animation;
+
+/**
+ * Benchmark stand-in, uses the same monotonic time base as SystemClock.uptimeMillis.
+ */
+public class AnimationUtils {
+
+	public static long currentAnimationTimeMillis() {
+		return System.nanoTime() / 1000000L;
+	}
+}
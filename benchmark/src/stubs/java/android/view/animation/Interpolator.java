@@ -0,0 +1,9 @@
+package android.view.animation;
+
+/**
+ * Benchmark stand-in.
+ */
+public interface Interpolator {
+
+	float getInterpolation( float input );
+}
@@ -0,0 +1,11 @@
+package android.widget;
+
+/**
+ * Benchmark stand-in, only the methods used to look up item ids.
+ */
+public interface Adapter {
+
+	int getCount();
+
+	long getItemId( int position );
+}
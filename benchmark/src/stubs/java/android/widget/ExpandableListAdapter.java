@@ -0,0 +1,13 @@
+package android.widget;
+
+/**
+ * Benchmark stand-in, only the methods used to look up group ids and children counts.
+ */
+public interface ExpandableListAdapter {
+
+	int getGroupCount();
+
+	int getChildrenCount( int groupPosition );
+
+	long getGroupId( int groupPosition );
+}
@@ -0,0 +1,13 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Benchmark stand-in, only the constants used by {@link ItemIdIndex}.
+ */
+public final class AdapterView {
+
+	public static final int INVALID_POSITION = -1;
+
+	public static final long INVALID_COL_ID = Long.MIN_VALUE;
+
+	private AdapterView() {}
+}
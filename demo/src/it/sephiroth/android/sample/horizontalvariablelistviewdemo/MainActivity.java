@@ -19,6 +19,7 @@ public class MainActivity extends ListActivity {
 		List<String> activities = new ArrayList<String>();
 		activities.add( "Simple List" );
 		activities.add( "Expandable List" );
+		activities.add( "Throughput Benchmark" );
 
 
 		setListAdapter( new ArrayAdapter<String>( this, android.R.layout.simple_list_item_1, activities ) );
@@ -34,6 +35,9 @@ public class MainActivity extends ListActivity {
 			case 1:
 				startActivity( new Intent( this, ExpandableListActivity.class ) );
 				break;
+			case 2:
+				startActivity( new Intent( this, ThroughputActivity.class ) );
+				break;
 		}
 
 		super.onListItemClick( l, v, position, id );
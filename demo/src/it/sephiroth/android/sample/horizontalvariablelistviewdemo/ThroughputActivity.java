@@ -0,0 +1,115 @@
+package it.sephiroth.android.sample.horizontalvariablelistviewdemo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.FrameLayout;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+/**
+ * Runs the {@link ThroughputBenchmark} as soon as it starts, and writes the report to logcat and to
+ * <code>list_throughput.json</code> in the internal files directory of the app, which needs no storage permission:
+ *
+ * <pre>
+ * adb shell am start -W -n it.sephiroth.android.sample.horizontalvariablelistviewdemo/.ThroughputActivity --ei iterations 200
+ * adb shell run-as it.sephiroth.android.sample.horizontalvariablelistviewdemo cat files/list_throughput.json
+ * </pre>
+ */
+public class ThroughputActivity extends Activity implements ThroughputBenchmark.Callback {
+
+	public static final String EXTRA_ITERATIONS = "iterations";
+
+	private static final String LOG_TAG = "ThroughputBenchmark";
+	private static final String REPORT_FILE_NAME = "list_throughput.json";
+
+	private TextView mStatus;
+	private FrameLayout mContainer;
+	private ThroughputBenchmark mBenchmark;
+
+	@Override
+	protected void onCreate( Bundle savedInstanceState ) {
+		super.onCreate( savedInstanceState );
+
+		final LinearLayout layout = new LinearLayout( this );
+		layout.setOrientation( LinearLayout.VERTICAL );
+
+		mContainer = new FrameLayout( this );
+		final int height = (int) ( 120 * getResources().getDisplayMetrics().density );
+		layout.addView( mContainer, new LinearLayout.LayoutParams( LinearLayout.LayoutParams.MATCH_PARENT, height ) );
+
+		mStatus = new TextView( this );
+		layout.addView( mStatus, new LinearLayout.LayoutParams( LinearLayout.LayoutParams.MATCH_PARENT,
+				LinearLayout.LayoutParams.WRAP_CONTENT ) );
+
+		setContentView( layout );
+
+		final int iterations = getIntent().getIntExtra( EXTRA_ITERATIONS, ThroughputBenchmark.DEFAULT_ITERATIONS );
+		mBenchmark = new ThroughputBenchmark( mContainer, iterations );
+
+		// runs once the container has been laid out
+		mContainer.post( new Runnable() {
+
+			@Override
+			public void run() {
+				if ( mContainer.getWidth() == 0 ) {
+					mContainer.post( this );
+					return;
+				}
+				mBenchmark.start( ThroughputActivity.this );
+			}
+		} );
+	}
+
+	@Override
+	protected void onDestroy() {
+		mBenchmark.cancel();
+		super.onDestroy();
+	}
+
+	@Override
+	public void onScenarioFinished( JSONObject result ) {
+		final String value;
+		if ( result.has( "opsPerSecond" ) ) {
+			value = Math.round( result.optDouble( "opsPerSecond" ) ) + " ops/s";
+		} else {
+			value = result.optLong( "frames" ) + " frames, " + result.optLong( "framesOverBudget" ) + " over budget";
+		}
+		mStatus.append( result.optString( "content" ) + " " + result.optString( "operation" ) + ": " + value + "\n" );
+	}
+
+	@Override
+	public void onFinished( JSONObject report ) {
+		String json;
+		try {
+			json = report.toString( 2 );
+		} catch ( JSONException e ) {
+			json = report.toString();
+		}
+		Log.i( LOG_TAG, report.toString() );
+
+		final File file = new File( getFilesDir(), REPORT_FILE_NAME );
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream( file );
+			out.write( json.getBytes( "UTF-8" ) );
+			mStatus.append( "Report written to " + file.getAbsolutePath() );
+		} catch ( IOException e ) {
+			Log.e( LOG_TAG, "Failed to write " + file, e );
+		} finally {
+			if ( out != null ) {
+				try {
+					out.close();
+				} catch ( IOException e ) {}
+			}
+		}
+	}
+}
@@ -0,0 +1,549 @@
+package it.sephiroth.android.sample.horizontalvariablelistviewdemo;
+
+import it.sephiroth.android.library.util.Histogram;
+import it.sephiroth.android.library.widget.AbsHListView;
+import it.sephiroth.android.library.widget.AbsHListView.OnScrollListener;
+import it.sephiroth.android.library.widget.ExpandableHListView;
+import it.sephiroth.android.library.widget.HListView;
+import it.sephiroth.android.library.widget.ListFrameMetrics;
+
+import java.util.Random;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.view.Gravity;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.BaseExpandableListAdapter;
+import android.widget.TextView;
+
+/**
+ * Layout throughput of HListView and ExpandableHListView with synthetic adapters.<br />
+ * Every scenario adds a list with one kind of {@link Content} to the container and repeats one {@link Operation} on it. The
+ * synchronous operations are followed by a measure and layout pass, so that every iteration includes the layout it causes.
+ * The report is a JSON object with, for every scenario, the operations per second, the getView calls and the allocations of
+ * the UI thread, also divided by the number of items scrolled (or laid out, for the operations which don't scroll).<br />
+ * The wall time of {@link Operation#SMOOTH_SCROLL_BY} is bound by the scroll animation and by the waits between the steps, so
+ * that scenario reports the work done by the list in every frame, from its {@link ListFrameMetrics}, instead of the operations
+ * per second and the allocations.<br />
+ * Everything runs on the UI thread of the given container, which must be laid out before {@link #start(Callback)}.
+ */
+public class ThroughputBenchmark {
+
+	public interface Callback {
+
+		void onScenarioFinished( JSONObject result );
+
+		void onFinished( JSONObject report );
+	}
+
+	public enum Content {
+		FIXED_WIDTH, VARIABLE_WIDTH, VIEW_TYPES, HEADERS_FOOTERS, EXPANDABLE
+	}
+
+	public enum Operation {
+		SCROLL_LIST_BY, SMOOTH_SCROLL_BY, SET_SELECTION_FROM_LEFT, NOTIFY_DATA_SET_CHANGED
+	}
+
+	public static final int DEFAULT_ITERATIONS = 200;
+
+	static final int ITEM_COUNT = 1000;
+	static final int GROUP_COUNT = 200;
+	static final int VIEW_TYPE_COUNT = 3;
+
+	private static final int SMOOTH_SCROLL_DURATION = 100;
+
+	private final ViewGroup mContainer;
+	private final Context mContext;
+	private final Handler mHandler = new Handler();
+	private final Random mRandom = new Random( 42 );
+	private final int mIterations;
+	private final int mItemWidth;
+
+	private Callback mCallback;
+	private JSONArray mResults;
+	private int mScenario;
+	private boolean mCancelled;
+
+	/** the list of the running scenario */
+	private HListView mList;
+	private Content mContent;
+	private Operation mOperation;
+	private BaseAdapter mAdapter;
+	private BaseExpandableListAdapter mExpandableAdapter;
+	private int mDirection;
+
+	private int mGetViewCalls;
+	private int mViewsCreated;
+
+	private int mRemaining;
+	private int mMeasuredIterations;
+	private long mStartNanos;
+	private long mItems;
+	private boolean mWaitingForIdle;
+	private int mFirstPositionBeforeStep;
+	private long mFrameWorkNanos;
+
+	public ThroughputBenchmark( ViewGroup container, int iterations ) {
+		mContainer = container;
+		mContext = container.getContext();
+		mIterations = iterations;
+		mItemWidth = (int) ( 80 * mContext.getResources().getDisplayMetrics().density );
+	}
+
+	public void start( Callback callback ) {
+		mCallback = callback;
+		mResults = new JSONArray();
+		mScenario = 0;
+		mCancelled = false;
+		startScenario();
+	}
+
+	public void cancel() {
+		mCancelled = true;
+		mHandler.removeCallbacksAndMessages( null );
+		if ( mList != null ) {
+			mList.setOnScrollListener( null );
+		}
+	}
+
+	private void startScenario() {
+		final Operation[] operations = Operation.values();
+		if ( mScenario == Content.values().length * operations.length ) {
+			finish();
+			return;
+		}
+
+		mContent = Content.values()[mScenario / operations.length];
+		mOperation = operations[mScenario % operations.length];
+		mScenario++;
+
+		mContainer.removeAllViews();
+		mList = createList( mContent );
+		mContainer.addView( mList, new ViewGroup.LayoutParams( ViewGroup.LayoutParams.MATCH_PARENT,
+				ViewGroup.LayoutParams.MATCH_PARENT ) );
+		mDirection = 1;
+		layoutNow();
+
+		if ( mOperation == Operation.SMOOTH_SCROLL_BY ) {
+			// every iteration lasts at least the animation, a tenth of the iterations take as long as a scroll of the other ones
+			mList.setOnFrameMetricsListener( mFrameMetricsListener );
+			beginMeasure( Math.max( 1, mIterations / 10 ) );
+			smoothScrollStep();
+		} else {
+			// warm up the scrap heap and the JIT before the measured iterations
+			for ( int i = 0; i < mIterations / 4; i++ ) {
+				step();
+			}
+			beginMeasure( mIterations );
+			while ( mRemaining > 0 ) {
+				mRemaining--;
+				mItems += step();
+			}
+			endMeasure();
+		}
+	}
+
+	/**
+	 * Runs a synchronous operation
+	 *
+	 * @return the number of items scrolled or laid out
+	 */
+	private int step() {
+		switch ( mOperation ) {
+			case SCROLL_LIST_BY: {
+				updateDirection();
+				final int first = mList.getFirstVisiblePosition();
+				mList.scrollListBy( mDirection * mItemWidth );
+				return Math.abs( mList.getFirstVisiblePosition() - first );
+			}
+
+			case SET_SELECTION_FROM_LEFT:
+				mList.setSelectionFromLeft( mRandom.nextInt( mList.getCount() ), 0 );
+				layoutNow();
+				return mList.getChildCount();
+
+			case NOTIFY_DATA_SET_CHANGED:
+				if ( mExpandableAdapter != null ) {
+					mExpandableAdapter.notifyDataSetChanged();
+				} else {
+					mAdapter.notifyDataSetChanged();
+				}
+				layoutNow();
+				return mList.getChildCount();
+
+			default:
+				throw new IllegalStateException( "Not a synchronous operation: " + mOperation );
+		}
+	}
+
+	private void smoothScrollStep() {
+		if ( mCancelled ) {
+			return;
+		}
+		if ( mRemaining == 0 ) {
+			endMeasure();
+			return;
+		}
+		mRemaining--;
+
+		updateDirection();
+		mFirstPositionBeforeStep = mList.getFirstVisiblePosition();
+		mWaitingForIdle = true;
+		mList.smoothScrollBy( mDirection * mItemWidth * 8, SMOOTH_SCROLL_DURATION );
+
+		// smoothScrollBy doesn't report a state change when there is nothing to scroll
+		mHandler.postDelayed( mSmoothScrollTimeout, SMOOTH_SCROLL_DURATION * 4 );
+	}
+
+	private void onSmoothScrollStepFinished() {
+		if ( !mWaitingForIdle ) {
+			return;
+		}
+		mWaitingForIdle = false;
+		mHandler.removeCallbacks( mSmoothScrollTimeout );
+		mItems += Math.abs( mList.getFirstVisiblePosition() - mFirstPositionBeforeStep );
+		mHandler.post( mNextSmoothScrollStep );
+	}
+
+	private final Runnable mSmoothScrollTimeout = new Runnable() {
+
+		@Override
+		public void run() {
+			onSmoothScrollStepFinished();
+		}
+	};
+
+	private final Runnable mNextSmoothScrollStep = new Runnable() {
+
+		@Override
+		public void run() {
+			smoothScrollStep();
+		}
+	};
+
+	private final OnScrollListener mScrollListener = new OnScrollListener() {
+
+		@Override
+		public void onScrollStateChanged( AbsHListView view, int scrollState ) {
+			if ( scrollState == OnScrollListener.SCROLL_STATE_IDLE ) {
+				onSmoothScrollStepFinished();
+			}
+		}
+
+		@Override
+		public void onScroll( AbsHListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount ) {}
+	};
+
+	private final AbsHListView.OnFrameMetricsListener mFrameMetricsListener = new AbsHListView.OnFrameMetricsListener() {
+
+		@Override
+		public void onFrameMetrics( AbsHListView view, ListFrameMetrics metrics ) {
+			mFrameWorkNanos += metrics.getNanos( ListFrameMetrics.FRAME );
+		}
+	};
+
+	/**
+	 * Scrolls toward the end of the list until the last item is visible, then back toward the start
+	 */
+	private void updateDirection() {
+		if ( mDirection > 0 && mList.getLastVisiblePosition() >= mList.getCount() - 1 ) {
+			mDirection = -1;
+		} else if ( mDirection < 0 && mList.getFirstVisiblePosition() == 0 ) {
+			mDirection = 1;
+		}
+	}
+
+	@SuppressWarnings ( "deprecation" )
+	private void beginMeasure( int iterations ) {
+		mRemaining = iterations;
+		mMeasuredIterations = iterations;
+		mItems = 0;
+		mGetViewCalls = 0;
+		mViewsCreated = 0;
+		mFrameWorkNanos = 0;
+
+		Debug.resetThreadAllocCount();
+		Debug.resetThreadAllocSize();
+		Debug.startAllocCounting();
+		mStartNanos = System.nanoTime();
+	}
+
+	@SuppressWarnings ( "deprecation" )
+	private void endMeasure() {
+		final long elapsedNanos = System.nanoTime() - mStartNanos;
+		Debug.stopAllocCounting();
+		final int allocCount = Debug.getThreadAllocCount();
+		final int allocBytes = Debug.getThreadAllocSize();
+
+		final JSONObject result = new JSONObject();
+		try {
+			result.put( "content", mContent.name() );
+			result.put( "operation", mOperation.name() );
+			result.put( "iterations", mMeasuredIterations );
+			result.put( "items", mItems );
+			result.put( "getViewCalls", mGetViewCalls );
+			result.put( "viewsCreated", mViewsCreated );
+			result.put( "getViewPerItem", ratio( mGetViewCalls, mItems ) );
+
+			final ListFrameMetrics metrics = mList.getFrameMetrics();
+			if ( metrics != null ) {
+				// the wall time and the thread allocations include the animation and the idle waits, only the frames are measured
+				result.put( "note", "opsPerSecond and allocations are not measured for this operation, see the frame timings" );
+				result.put( "frames", metrics.getFrameCount() );
+				result.put( "framesOverBudget", metrics.getFramesOverBudget() );
+				result.put( "frameWorkNanos", mFrameWorkNanos );
+				result.put( "frameWorkNanosPerItem", ratio( mFrameWorkNanos, mItems ) );
+				result.put( "frame", toJson( metrics.getHistogram( ListFrameMetrics.FRAME ) ) );
+				result.put( "fillGap", toJson( metrics.getHistogram( ListFrameMetrics.FILL_GAP ) ) );
+				result.put( "obtainView", toJson( metrics.getHistogram( ListFrameMetrics.OBTAIN_VIEW ) ) );
+				result.put( "setupChild", toJson( metrics.getHistogram( ListFrameMetrics.SETUP_CHILD ) ) );
+				result.put( "draw", toJson( metrics.getHistogram( ListFrameMetrics.DRAW ) ) );
+				mList.setOnFrameMetricsListener( null );
+			} else {
+				result.put( "elapsedNanos", elapsedNanos );
+				result.put( "opsPerSecond", ratio( mMeasuredIterations * 1e9, elapsedNanos ) );
+				result.put( "allocCount", allocCount );
+				result.put( "allocBytes", allocBytes );
+				result.put( "allocsPerItem", ratio( allocCount, mItems ) );
+				result.put( "allocBytesPerItem", ratio( allocBytes, mItems ) );
+			}
+		} catch ( JSONException e ) {
+			throw new IllegalStateException( e );
+		}
+		mResults.put( result );
+		if ( mCallback != null ) {
+			mCallback.onScenarioFinished( result );
+		}
+
+		// let the list settle and draw before the next scenario
+		mHandler.post( new Runnable() {
+
+			@Override
+			public void run() {
+				if ( !mCancelled ) {
+					startScenario();
+				}
+			}
+		} );
+	}
+
+	private void finish() {
+		mContainer.removeAllViews();
+		mList = null;
+
+		final JSONObject report = new JSONObject();
+		try {
+			report.put( "device", Build.MANUFACTURER + " " + Build.MODEL );
+			report.put( "sdk", Build.VERSION.SDK_INT );
+			report.put( "width", mContainer.getWidth() );
+			report.put( "itemWidth", mItemWidth );
+			report.put( "results", mResults );
+		} catch ( JSONException e ) {
+			throw new IllegalStateException( e );
+		}
+		if ( mCallback != null ) {
+			mCallback.onFinished( report );
+		}
+	}
+
+	private static double ratio( double value, double count ) {
+		return count > 0 ? value / count : 0;
+	}
+
+	/**
+	 * @return the count, mean and percentiles of a frame timing, in nanoseconds
+	 */
+	private static JSONObject toJson( Histogram histogram ) throws JSONException {
+		final JSONObject json = new JSONObject();
+		json.put( "count", histogram.getCount() );
+		json.put( "mean", histogram.getMean() );
+		json.put( "p50", histogram.getValueAtPercentile( 50 ) );
+		json.put( "p90", histogram.getValueAtPercentile( 90 ) );
+		json.put( "p99", histogram.getValueAtPercentile( 99 ) );
+		json.put( "max", histogram.getMax() );
+		return json;
+	}
+
+	private void layoutNow() {
+		final int width = mContainer.getWidth();
+		final int height = mContainer.getHeight();
+		mList.measure( MeasureSpec.makeMeasureSpec( width, MeasureSpec.EXACTLY ),
+				MeasureSpec.makeMeasureSpec( height, MeasureSpec.EXACTLY ) );
+		mList.layout( 0, 0, width, height );
+	}
+
+	private HListView createList( Content content ) {
+		final HListView list;
+		mAdapter = null;
+		mExpandableAdapter = null;
+
+		if ( content == Content.EXPANDABLE ) {
+			final ExpandableHListView expandableList = new ExpandableHListView( mContext );
+			mExpandableAdapter = new GroupAdapter();
+			expandableList.setAdapter( mExpandableAdapter );
+			for ( int i = 0; i < GROUP_COUNT; i += 2 ) {
+				expandableList.expandGroup( i );
+			}
+			list = expandableList;
+		} else {
+			list = new HListView( mContext );
+			if ( content == Content.HEADERS_FOOTERS ) {
+				for ( int i = 0; i < 2; i++ ) {
+					list.addHeaderView( createItemView( 0, mItemWidth * 2, "header " + i ) );
+					list.addFooterView( createItemView( 0, mItemWidth * 2, "footer " + i ) );
+				}
+			}
+			mAdapter = new ItemAdapter( content );
+			list.setAdapter( mAdapter );
+		}
+		list.setOnScrollListener( mScrollListener );
+		return list;
+	}
+
+	private TextView createItemView( int viewType, int width, CharSequence text ) {
+		final TextView view = new TextView( mContext );
+		view.setGravity( Gravity.CENTER );
+		view.setBackgroundColor( viewType == 0 ? Color.DKGRAY : viewType == 1 ? Color.GRAY : Color.LTGRAY );
+		view.setLayoutParams( new AbsHListView.LayoutParams( width, ViewGroup.LayoutParams.MATCH_PARENT ) );
+		view.setText( text );
+		return view;
+	}
+
+	/**
+	 * Binds a recycled item view, resizing it if needed
+	 */
+	private View bindItemView( View convertView, int viewType, int width, CharSequence text ) {
+		mGetViewCalls++;
+		if ( convertView == null ) {
+			mViewsCreated++;
+			return createItemView( viewType, width, text );
+		}
+
+		final TextView view = (TextView) convertView;
+		final ViewGroup.LayoutParams lp = view.getLayoutParams();
+		if ( lp.width != width ) {
+			lp.width = width;
+			view.setLayoutParams( lp );
+		}
+		view.setText( text );
+		return view;
+	}
+
+	private class ItemAdapter extends BaseAdapter {
+
+		private final Content mContent;
+
+		ItemAdapter( Content content ) {
+			mContent = content;
+		}
+
+		@Override
+		public int getCount() {
+			return ITEM_COUNT;
+		}
+
+		@Override
+		public Object getItem( int position ) {
+			return position;
+		}
+
+		@Override
+		public long getItemId( int position ) {
+			return position;
+		}
+
+		@Override
+		public boolean hasStableIds() {
+			return true;
+		}
+
+		@Override
+		public int getViewTypeCount() {
+			return mContent == Content.VIEW_TYPES ? VIEW_TYPE_COUNT : 1;
+		}
+
+		@Override
+		public int getItemViewType( int position ) {
+			return mContent == Content.VIEW_TYPES ? position % VIEW_TYPE_COUNT : 0;
+		}
+
+		private int getItemWidth( int position ) {
+			switch ( mContent ) {
+				case VARIABLE_WIDTH:
+					return mItemWidth / 2 + ( position * 7919 % 5 ) * mItemWidth / 4;
+				case VIEW_TYPES:
+					return mItemWidth * ( 2 + getItemViewType( position ) ) / 3;
+				default:
+					return mItemWidth;
+			}
+		}
+
+		@Override
+		public View getView( int position, View convertView, ViewGroup parent ) {
+			return bindItemView( convertView, getItemViewType( position ), getItemWidth( position ), String.valueOf( position ) );
+		}
+	}
+
+	private class GroupAdapter extends BaseExpandableListAdapter {
+
+		@Override
+		public int getGroupCount() {
+			return GROUP_COUNT;
+		}
+
+		@Override
+		public int getChildrenCount( int groupPosition ) {
+			return groupPosition % 8;
+		}
+
+		@Override
+		public Object getGroup( int groupPosition ) {
+			return groupPosition;
+		}
+
+		@Override
+		public Object getChild( int groupPosition, int childPosition ) {
+			return childPosition;
+		}
+
+		@Override
+		public long getGroupId( int groupPosition ) {
+			return groupPosition;
+		}
+
+		@Override
+		public long getChildId( int groupPosition, int childPosition ) {
+			return ( (long) groupPosition << 16 ) | childPosition;
+		}
+
+		@Override
+		public boolean hasStableIds() {
+			return true;
+		}
+
+		@Override
+		public View getGroupView( int groupPosition, boolean isExpanded, View convertView, ViewGroup parent ) {
+			return bindItemView( convertView, 0, mItemWidth, "group " + groupPosition );
+		}
+
+		@Override
+		public View getChildView( int groupPosition, int childPosition, boolean isLastChild, View convertView, ViewGroup parent ) {
+			return bindItemView( convertView, 1, mItemWidth / 2, groupPosition + "." + childPosition );
+		}
+
+		@Override
+		public boolean isChildSelectable( int groupPosition, int childPosition ) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package it.sephiroth.android.library.util;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of non negative <code>long</code> values with a fixed memory footprint.<br />
+ * Values below 8 have their own bucket, larger values are grouped in 8 buckets for every power of two, so that every bucket is
+ * at most 12.5% wide relative to its values. Recording is O(1) and doesn't allocate, which makes it suitable for timings
+ * collected on the UI thread and shipped later.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = ( 64 - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT;
+
+	private final int[] mCounts = new int[BUCKET_COUNT];
+
+	private long mTotalCount;
+	private long mSum;
+	private long mMin = Long.MAX_VALUE;
+	private long mMax;
+
+	/**
+	 * Adds a value, negative values are recorded as 0
+	 */
+	public void record( long value ) {
+		if ( value < 0 ) {
+			value = 0;
+		}
+		mCounts[getBucketIndex( value )]++;
+		mTotalCount++;
+		mSum += value;
+		if ( value < mMin ) {
+			mMin = value;
+		}
+		if ( value > mMax ) {
+			mMax = value;
+		}
+	}
+
+	/**
+	 * Adds all the values recorded by <var>other</var>
+	 */
+	public void add( Histogram other ) {
+		if ( other.mTotalCount == 0 ) {
+			return;
+		}
+		for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+			mCounts[i] += other.mCounts[i];
+		}
+		mTotalCount += other.mTotalCount;
+		mSum += other.mSum;
+		mMin = Math.min( mMin, other.mMin );
+		mMax = Math.max( mMax, other.mMax );
+	}
+
+	public void reset() {
+		Arrays.fill( mCounts, 0 );
+		mTotalCount = 0;
+		mSum = 0;
+		mMin = Long.MAX_VALUE;
+		mMax = 0;
+	}
+
+	public long getCount() {
+		return mTotalCount;
+	}
+
+	/**
+	 * @return the smallest recorded value, 0 if the histogram is empty
+	 */
+	public long getMin() {
+		return mTotalCount > 0 ? mMin : 0;
+	}
+
+	public long getMax() {
+		return mMax;
+	}
+
+	public double getMean() {
+		return mTotalCount > 0 ? (double) mSum / mTotalCount : 0;
+	}
+
+	/**
+	 * Returns an upper bound of the value below which <var>percentile</var> percent of the recorded values fall. The result is
+	 * exact for the 0th and 100th percentile, and at most 12.5% above the actual value otherwise.
+	 *
+	 * @param percentile
+	 *           between 0 and 100
+	 * @return the value, 0 if the histogram is empty
+	 */
+	public long getValueAtPercentile( double percentile ) {
+		if ( mTotalCount == 0 ) {
+			return 0;
+		}
+		if ( percentile <= 0 ) {
+			return mMin;
+		}
+		final long rank = (long) Math.ceil( Math.min( percentile, 100 ) / 100 * mTotalCount );
+		long count = 0;
+		for ( int i = 0; i < BUCKET_COUNT; i++ ) {
+			count += mCounts[i];
+			if ( count >= rank ) {
+				return Math.max( mMin, Math.min( mMax, getBucketUpperBound( i ) ) );
+			}
+		}
+		return mMax;
+	}
+
+	/**
+	 * @return the number of buckets, use it with {@link #getBucketCount(int)} and {@link #getBucketLowerBound(int)} to export
+	 *         the histogram
+	 */
+	public int getBucketCount() {
+		return BUCKET_COUNT;
+	}
+
+	/**
+	 * @return how many values have been recorded in the given bucket
+	 */
+	public int getBucketCount( int bucket ) {
+		return mCounts[bucket];
+	}
+
+	/**
+	 * @return the smallest value recorded in the given bucket
+	 */
+	public static long getBucketLowerBound( int bucket ) {
+		if ( bucket < SUB_BUCKET_COUNT ) {
+			return bucket;
+		}
+		final int exponent = bucket / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		final long subBucket = bucket % SUB_BUCKET_COUNT;
+		return ( SUB_BUCKET_COUNT + subBucket ) << ( exponent - SUB_BUCKET_BITS );
+	}
+
+	/**
+	 * @return the largest value recorded in the given bucket
+	 */
+	public static long getBucketUpperBound( int bucket ) {
+		return bucket + 1 < BUCKET_COUNT ? getBucketLowerBound( bucket + 1 ) - 1 : Long.MAX_VALUE;
+	}
+
+	static int getBucketIndex( long value ) {
+		if ( value < SUB_BUCKET_COUNT ) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros( value );
+		final int subBucket = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKET_COUNT - 1 );
+		return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram{count=" + mTotalCount + ", min=" + getMin() + ", mean=" + (long) getMean() + ", p50="
+				+ getValueAtPercentile( 50 ) + ", p90=" + getValueAtPercentile( 90 ) + ", p99=" + getValueAtPercentile( 99 )
+				+ ", max=" + mMax + "}";
+	}
+}
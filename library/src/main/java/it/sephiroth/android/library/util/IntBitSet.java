@@ -0,0 +1,255 @@
+package it.sephiroth.android.library.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable set of non negative <code>int</code> values backed by a <code>long</code> array, one bit per value.<br />
+ * Lookups and updates are O(1) and don't allocate, {@link #cardinality()} is a population count over the words. Unlike
+ * {@link java.util.BitSet} the words can be exported and imported as they are, for a compact parcelable representation.
+ */
+public class IntBitSet implements Cloneable {
+
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+
+	private long[] mWords;
+
+	/** number of words in use, the ones past it are all 0 */
+	private int mWordsInUse;
+
+	public IntBitSet() {
+		mWords = new long[1];
+	}
+
+	private IntBitSet( long[] words ) {
+		mWords = words.length > 0 ? words : new long[1];
+		mWordsInUse = words.length;
+		recalculateWordsInUse();
+	}
+
+	/**
+	 * Creates a set from the words returned by {@link #toLongArray()}
+	 */
+	public static IntBitSet valueOf( long[] words ) {
+		return new IntBitSet( Arrays.copyOf( words, words.length ) );
+	}
+
+	/**
+	 * @return true if <var>index</var> is in the set
+	 */
+	public boolean get( int index ) {
+		if ( index < 0 ) {
+			return false;
+		}
+		final int word = index >> ADDRESS_BITS_PER_WORD;
+		return word < mWordsInUse && ( mWords[word] & ( 1L << index ) ) != 0;
+	}
+
+	/**
+	 * Adds <var>index</var> to the set, or removes it if <var>value</var> is false
+	 */
+	public void set( int index, boolean value ) {
+		if ( value ) {
+			set( index );
+		} else {
+			clear( index );
+		}
+	}
+
+	public void set( int index ) {
+		if ( index < 0 ) {
+			throw new IndexOutOfBoundsException( "index < 0: " + index );
+		}
+		final int word = index >> ADDRESS_BITS_PER_WORD;
+		expandTo( word );
+		mWords[word] |= 1L << index;
+	}
+
+	/**
+	 * Adds all the values from <var>fromIndex</var> (inclusive) to <var>toIndex</var> (exclusive)
+	 */
+	public void set( int fromIndex, int toIndex ) {
+		if ( fromIndex < 0 || toIndex < fromIndex ) {
+			throw new IndexOutOfBoundsException( "fromIndex: " + fromIndex + ", toIndex: " + toIndex );
+		}
+		if ( fromIndex == toIndex ) {
+			return;
+		}
+
+		final int startWord = fromIndex >> ADDRESS_BITS_PER_WORD;
+		final int endWord = ( toIndex - 1 ) >> ADDRESS_BITS_PER_WORD;
+		expandTo( endWord );
+
+		final long firstMask = -1L << fromIndex;
+		final long lastMask = -1L >>> -toIndex;
+		if ( startWord == endWord ) {
+			mWords[startWord] |= firstMask & lastMask;
+		} else {
+			mWords[startWord] |= firstMask;
+			for ( int i = startWord + 1; i < endWord; i++ ) {
+				mWords[i] = -1L;
+			}
+			mWords[endWord] |= lastMask;
+		}
+	}
+
+	public void clear( int index ) {
+		if ( index < 0 ) {
+			return;
+		}
+		final int word = index >> ADDRESS_BITS_PER_WORD;
+		if ( word < mWordsInUse ) {
+			mWords[word] &= ~( 1L << index );
+			recalculateWordsInUse();
+		}
+	}
+
+	/**
+	 * Removes all the values from <var>fromIndex</var> (inclusive) to <var>toIndex</var> (exclusive)
+	 */
+	public void clear( int fromIndex, int toIndex ) {
+		if ( fromIndex < 0 || toIndex < fromIndex ) {
+			throw new IndexOutOfBoundsException( "fromIndex: " + fromIndex + ", toIndex: " + toIndex );
+		}
+
+		final int startWord = fromIndex >> ADDRESS_BITS_PER_WORD;
+		if ( fromIndex == toIndex || startWord >= mWordsInUse ) {
+			return;
+		}
+
+		int endWord = ( toIndex - 1 ) >> ADDRESS_BITS_PER_WORD;
+		long lastMask = -1L >>> -toIndex;
+		if ( endWord >= mWordsInUse ) {
+			endWord = mWordsInUse - 1;
+			lastMask = -1L;
+		}
+
+		final long firstMask = -1L << fromIndex;
+		if ( startWord == endWord ) {
+			mWords[startWord] &= ~( firstMask & lastMask );
+		} else {
+			mWords[startWord] &= ~firstMask;
+			for ( int i = startWord + 1; i < endWord; i++ ) {
+				mWords[i] = 0;
+			}
+			mWords[endWord] &= ~lastMask;
+		}
+		recalculateWordsInUse();
+	}
+
+	/**
+	 * Removes all the values
+	 */
+	public void clear() {
+		Arrays.fill( mWords, 0, mWordsInUse, 0 );
+		mWordsInUse = 0;
+	}
+
+	public boolean isEmpty() {
+		return mWordsInUse == 0;
+	}
+
+	/**
+	 * @return the number of values in the set
+	 */
+	public int cardinality() {
+		int count = 0;
+		for ( int i = 0; i < mWordsInUse; i++ ) {
+			count += Long.bitCount( mWords[i] );
+		}
+		return count;
+	}
+
+	/**
+	 * @return the first value in the set greater than or equal to <var>fromIndex</var>, or -1 if there's none
+	 */
+	public int nextSetBit( int fromIndex ) {
+		if ( fromIndex < 0 ) {
+			fromIndex = 0;
+		}
+		int word = fromIndex >> ADDRESS_BITS_PER_WORD;
+		if ( word >= mWordsInUse ) {
+			return -1;
+		}
+
+		long bits = mWords[word] & ( -1L << fromIndex );
+		while ( true ) {
+			if ( bits != 0 ) {
+				return ( word << ADDRESS_BITS_PER_WORD ) + Long.numberOfTrailingZeros( bits );
+			}
+			if ( ++word == mWordsInUse ) {
+				return -1;
+			}
+			bits = mWords[word];
+		}
+	}
+
+	/**
+	 * Returns the words of the set, without the trailing empty ones. The result can be passed to {@link #valueOf(long[])}.
+	 */
+	public long[] toLongArray() {
+		return Arrays.copyOf( mWords, mWordsInUse );
+	}
+
+	@Override
+	public IntBitSet clone() {
+		return new IntBitSet( toLongArray() );
+	}
+
+	@Override
+	public boolean equals( Object o ) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( !( o instanceof IntBitSet ) ) {
+			return false;
+		}
+		final IntBitSet other = (IntBitSet) o;
+		if ( mWordsInUse != other.mWordsInUse ) {
+			return false;
+		}
+		for ( int i = 0; i < mWordsInUse; i++ ) {
+			if ( mWords[i] != other.mWords[i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = 1234;
+		for ( int i = mWordsInUse; --i >= 0; ) {
+			h ^= mWords[i] * ( i + 1 );
+		}
+		return (int) ( ( h >> 32 ) ^ h );
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder( "{" );
+		for ( int i = nextSetBit( 0 ); i >= 0; i = nextSetBit( i + 1 ) ) {
+			if ( b.length() > 1 ) {
+				b.append( ", " );
+			}
+			b.append( i );
+		}
+		return b.append( '}' ).toString();
+	}
+
+	private void expandTo( int word ) {
+		if ( word >= mWords.length ) {
+			mWords = Arrays.copyOf( mWords, Math.max( mWords.length * 2, word + 1 ) );
+		}
+		if ( word >= mWordsInUse ) {
+			mWordsInUse = word + 1;
+		}
+	}
+
+	private void recalculateWordsInUse() {
+		int i = mWordsInUse - 1;
+		while ( i >= 0 && mWords[i] == 0 ) {
+			i--;
+		}
+		mWordsInUse = i + 1;
+	}
+}
@@ -0,0 +1,170 @@
+package it.sephiroth.android.library.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive <code>long</code> keys to primitive <code>int</code> values.<br />
+ * Unlike {@link android.support.v4.util.LongSparseArray} lookups and insertions are O(1) regardless of the key order, and no
+ * boxing is involved. Removal uses backward shift deletion, so there are no tombstones and the table never degrades.
+ */
+public class LongIntHashMap {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] mKeys;
+	private int[] mValues;
+	private boolean[] mUsed;
+	private int mSize;
+	private int mMask;
+
+	public LongIntHashMap() {
+		this( MIN_CAPACITY );
+	}
+
+	/**
+	 * @param expectedSize
+	 *           number of mappings the map can hold before it needs to grow
+	 */
+	public LongIntHashMap( int expectedSize ) {
+		allocate( tableSizeFor( expectedSize ) );
+	}
+
+	/**
+	 * Returns the value mapped to <var>key</var>, or <var>valueIfKeyNotFound</var> if there is no such mapping.
+	 */
+	public int get( long key, int valueIfKeyNotFound ) {
+		int slot = hash( key ) & mMask;
+		while ( mUsed[slot] ) {
+			if ( mKeys[slot] == key ) {
+				return mValues[slot];
+			}
+			slot = ( slot + 1 ) & mMask;
+		}
+		return valueIfKeyNotFound;
+	}
+
+	public boolean containsKey( long key ) {
+		int slot = hash( key ) & mMask;
+		while ( mUsed[slot] ) {
+			if ( mKeys[slot] == key ) {
+				return true;
+			}
+			slot = ( slot + 1 ) & mMask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a mapping from <var>key</var> to <var>value</var>, replacing the previous mapping if there was one.
+	 */
+	public void put( long key, int value ) {
+		int slot = hash( key ) & mMask;
+		while ( mUsed[slot] ) {
+			if ( mKeys[slot] == key ) {
+				mValues[slot] = value;
+				return;
+			}
+			slot = ( slot + 1 ) & mMask;
+		}
+
+		mUsed[slot] = true;
+		mKeys[slot] = key;
+		mValues[slot] = value;
+
+		if ( ++mSize > ( mKeys.length >> 1 ) + ( mKeys.length >> 2 ) ) {
+			rehash( mKeys.length << 1 );
+		}
+	}
+
+	/**
+	 * Removes the mapping for <var>key</var>, if any.
+	 *
+	 * @return true if a mapping was removed
+	 */
+	public boolean remove( long key ) {
+		int slot = hash( key ) & mMask;
+		while ( mUsed[slot] ) {
+			if ( mKeys[slot] == key ) {
+				shiftKeys( slot );
+				mSize--;
+				return true;
+			}
+			slot = ( slot + 1 ) & mMask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public void clear() {
+		if ( mSize > 0 ) {
+			Arrays.fill( mUsed, false );
+			mSize = 0;
+		}
+	}
+
+	private void shiftKeys( int slot ) {
+		// close the gap left by the removed entry moving back any entry of the same cluster
+		// which would not be reachable anymore from its home slot
+		int last;
+		while ( true ) {
+			last = slot;
+			slot = ( slot + 1 ) & mMask;
+			while ( true ) {
+				if ( !mUsed[slot] ) {
+					mUsed[last] = false;
+					return;
+				}
+				final int home = hash( mKeys[slot] ) & mMask;
+				if ( last <= slot ? ( last >= home || home > slot ) : ( last >= home && home > slot ) ) {
+					break;
+				}
+				slot = ( slot + 1 ) & mMask;
+			}
+			mKeys[last] = mKeys[slot];
+			mValues[last] = mValues[slot];
+		}
+	}
+
+	private void rehash( int capacity ) {
+		final long[] keys = mKeys;
+		final int[] values = mValues;
+		final boolean[] used = mUsed;
+
+		allocate( capacity );
+
+		for ( int i = 0; i < keys.length; i++ ) {
+			if ( used[i] ) {
+				int slot = hash( keys[i] ) & mMask;
+				while ( mUsed[slot] ) {
+					slot = ( slot + 1 ) & mMask;
+				}
+				mUsed[slot] = true;
+				mKeys[slot] = keys[i];
+				mValues[slot] = values[i];
+			}
+		}
+	}
+
+	private void allocate( int capacity ) {
+		mKeys = new long[capacity];
+		mValues = new int[capacity];
+		mUsed = new boolean[capacity];
+		mMask = capacity - 1;
+	}
+
+	private static int tableSizeFor( int expectedSize ) {
+		int capacity = MIN_CAPACITY;
+		while ( capacity - ( capacity >> 2 ) <= expectedSize ) {
+			capacity <<= 1;
+		}
+		return capacity;
+	}
+
+	private static int hash( long key ) {
+		final int h = (int) ( key ^ ( key >>> 32 ) ) * 0x9E3779B9;
+		return h ^ ( h >>> 16 );
+	}
+}
@@ -1,7 +1,9 @@
 package it.sephiroth.android.library.util;
 
+import android.content.Context;
 import android.util.Log;
 import android.view.View;
+import android.view.WindowManager;
 
 import it.sephiroth.android.library.util.v14.ViewHelper14;
 import it.sephiroth.android.library.util.v16.ViewHelper16;
@@ -9,12 +11,30 @@ import it.sephiroth.android.library.util.v16.ViewHelper16;
 public class ViewHelperFactory {
 
 	private static final String LOG_TAG = "ViewHelper";
-	
+
+	/**
+	 * A callback invoked once on the next frame with the time the frame started, in the {@link System#nanoTime()} time base.
+	 * On Jelly Bean and later the frame time is the vsync time given by the {@link android.view.Choreographer}, before that it
+	 * is the time the callback runs.
+	 */
+	public static abstract class FrameCallback implements Runnable {
+
+		public abstract void doFrame( long frameTimeNanos );
+
+		@Override
+		public final void run() {
+			doFrame( System.nanoTime() );
+		}
+	}
+
 	public static abstract class ViewHelper {
 
-		
+		private static final float DEFAULT_REFRESH_RATE = 60;
+
 		protected View view;
 
+		private long mFrameIntervalNanos;
+
 		protected ViewHelper( View view ) {
 			this.view = view;
 		}
@@ -22,6 +42,42 @@ public class ViewHelperFactory {
 		public abstract void postOnAnimation( Runnable action );
 		public abstract void setScrollX( int value );
 		public abstract boolean isHardwareAccelerated();
+
+		/**
+		 * Runs <var>callback</var> on the next animation frame
+		 */
+		public abstract void postFrameCallback( FrameCallback callback );
+
+		/**
+		 * Removes a callback posted with {@link #postFrameCallback(FrameCallback)}
+		 */
+		public abstract void removeFrameCallback( FrameCallback callback );
+
+		/**
+		 * @return the duration of a frame on the default display
+		 */
+		public long getFrameIntervalNanos() {
+			if ( mFrameIntervalNanos == 0 ) {
+				float refreshRate = DEFAULT_REFRESH_RATE;
+				final WindowManager wm = (WindowManager) view.getContext().getSystemService( Context.WINDOW_SERVICE );
+				if ( wm != null ) {
+					final float rate = wm.getDefaultDisplay().getRefreshRate();
+					if ( rate >= 30 ) {
+						refreshRate = rate;
+					}
+				}
+				mFrameIntervalNanos = (long) ( 1000000000 / refreshRate );
+			}
+			return mFrameIntervalNanos;
+		}
+
+		/**
+		 * @return the time left before the end of the frame started at <var>frameTimeNanos</var>, negative if the frame
+		 *         budget is already exhausted
+		 */
+		public long getRemainingFrameNanos( long frameTimeNanos ) {
+			return frameTimeNanos + getFrameIntervalNanos() - System.nanoTime();
+		}
 	}
 
 	public static class ViewHelperDefault extends ViewHelper {
@@ -35,6 +91,16 @@ public class ViewHelperFactory {
 			view.post( action );
 		}
 
+		@Override
+		public void postFrameCallback( FrameCallback callback ) {
+			view.post( callback );
+		}
+
+		@Override
+		public void removeFrameCallback( FrameCallback callback ) {
+			view.removeCallbacks( callback );
+		}
+
 		@Override
 		public void setScrollX( int value ) {
 			Log.d( LOG_TAG, "setScrollX: " + value );
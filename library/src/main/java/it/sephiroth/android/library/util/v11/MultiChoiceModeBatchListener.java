@@ -0,0 +1,19 @@
+package it.sephiroth.android.library.util.v11;
+
+import android.annotation.TargetApi;
+import android.view.ActionMode;
+
+/**
+ * A {@link MultiChoiceModeListener} which is notified once when a range of items is checked or unchecked at once, instead of once
+ * per item.
+ * 
+ * @see it.sephiroth.android.library.widget.AbsHListView#setItemsChecked(int, int, boolean)
+ */
+@TargetApi(11)
+public interface MultiChoiceModeBatchListener extends MultiChoiceModeListener {
+
+	/**
+	 * All the items from <var>start</var> (inclusive) to <var>end</var> (exclusive) have been checked or unchecked.
+	 */
+	public void onItemRangeCheckedStateChanged( ActionMode mode, int start, int end, boolean checked );
+}
@@ -7,7 +7,7 @@ import android.view.ActionMode;
 import android.view.Menu;
 import android.view.MenuItem;
 
-public class MultiChoiceModeWrapper implements MultiChoiceModeListener {
+public class MultiChoiceModeWrapper implements MultiChoiceModeBatchListener {
 
 	private MultiChoiceModeListener mWrapped;
 	private AbsHListView mView;
@@ -70,4 +70,24 @@ public class MultiChoiceModeWrapper implements MultiChoiceModeListener {
 			mode.finish();
 		}
 	}
+
+	/**
+	 * Notifies the wrapped listener with a single call if it is a {@link MultiChoiceModeBatchListener}, once per item otherwise.
+	 */
+	@TargetApi( Build.VERSION_CODES.HONEYCOMB )
+	@Override
+	public void onItemRangeCheckedStateChanged( ActionMode mode, int start, int end, boolean checked ) {
+		if ( mWrapped instanceof MultiChoiceModeBatchListener ) {
+			( (MultiChoiceModeBatchListener) mWrapped ).onItemRangeCheckedStateChanged( mode, start, end, checked );
+		} else {
+			for ( int position = start; position < end; position++ ) {
+				mWrapped.onItemCheckedStateChanged( mode, position, mView.getItemIdAtPosition( position ), checked );
+			}
+		}
+
+		// If there are no items selected we no longer need the selection mode.
+		if ( mView.getCheckedItemCount() == 0 ) {
+			mode.finish();
+		}
+	}
 }
\ No newline at end of file
@@ -1,19 +1,59 @@
 package it.sephiroth.android.library.util.v16;
 
+import it.sephiroth.android.library.util.ViewHelperFactory.FrameCallback;
 import it.sephiroth.android.library.util.v14.ViewHelper14;
 
 import android.annotation.TargetApi;
 import android.os.Build;
+import android.view.Choreographer;
 import android.view.View;
 
+import java.util.HashMap;
+
+@TargetApi( Build.VERSION_CODES.JELLY_BEAN )
 public class ViewHelper16 extends ViewHelper14 {
+
+	/** choreographer callbacks of the frame callbacks posted so far, created once per callback */
+	private final HashMap<FrameCallback, Choreographer.FrameCallback> mFrameCallbacks = new HashMap<FrameCallback, Choreographer.FrameCallback>();
+
 	public ViewHelper16( View view ) {
 		super( view );
 	}
 
-	@TargetApi( Build.VERSION_CODES.JELLY_BEAN )
 	@Override
 	public void postOnAnimation( Runnable action ) {
 		view.postOnAnimation(action);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void postFrameCallback( FrameCallback callback ) {
+		Choreographer.FrameCallback frameCallback = mFrameCallbacks.get( callback );
+		if ( frameCallback == null ) {
+			frameCallback = new ChoreographerCallback( callback );
+			mFrameCallbacks.put( callback, frameCallback );
+		}
+		Choreographer.getInstance().postFrameCallback( frameCallback );
+	}
+
+	@Override
+	public void removeFrameCallback( FrameCallback callback ) {
+		final Choreographer.FrameCallback frameCallback = mFrameCallbacks.get( callback );
+		if ( frameCallback != null ) {
+			Choreographer.getInstance().removeFrameCallback( frameCallback );
+		}
+	}
+
+	private static class ChoreographerCallback implements Choreographer.FrameCallback {
+
+		private final FrameCallback mCallback;
+
+		ChoreographerCallback( FrameCallback callback ) {
+			mCallback = callback;
+		}
+
+		@Override
+		public void doFrame( long frameTimeNanos ) {
+			mCallback.doFrame( frameTimeNanos );
+		}
+	}
+}
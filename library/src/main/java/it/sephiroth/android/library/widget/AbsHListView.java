@@ -22,6 +22,7 @@ import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
 import android.support.v4.widget.EdgeEffectCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 import android.view.ActionMode;
 import android.view.ContextMenu.ContextMenuInfo;
@@ -47,12 +48,16 @@ import android.widget.Checkable;
 import android.widget.ListAdapter;
 import android.widget.ListView;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 
 import it.sephiroth.android.library.R;
+import it.sephiroth.android.library.util.IntBitSet;
 import it.sephiroth.android.library.util.ViewHelperFactory;
+import it.sephiroth.android.library.util.ViewHelperFactory.FrameCallback;
 import it.sephiroth.android.library.util.ViewHelperFactory.ViewHelper;
+import it.sephiroth.android.library.util.v11.MultiChoiceModeBatchListener;
 import it.sephiroth.android.library.util.v11.MultiChoiceModeListener;
 import it.sephiroth.android.library.util.v11.MultiChoiceModeWrapper;
 
@@ -186,14 +191,40 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	/**
 	 * Running state of which positions are currently checked
 	 */
+	private IntBitSet mCheckedPositions;
+
+	/**
+	 * Snapshot of the checked positions returned by {@link #getCheckedItemPositions()}. It is rebuilt from the running state
+	 * only when that has changed since the last call, so it can be stale until {@link #getCheckedItemPositions()} is called
+	 * again, and changes made to it do not affect the list.
+	 */
 	protected SparseArrayCompat<Boolean> mCheckStates;
 
+	/**
+	 * True when the checked positions changed after {@link #mCheckStates} has been built
+	 */
+	private boolean mCheckStatesDirty = true;
+
 	/**
 	 * Running state of which IDs are currently checked. If there is a value for a given key, the checked state for that ID is true
 	 * and the value holds the last known position in the adapter for that id.
 	 */
 	LongSparseArray<Integer> mCheckedIdStates;
 
+	/**
+	 * True if the adapter content changed since the checked ids have been matched to their positions
+	 */
+	boolean mCheckedIdsNeedConfirm;
+
+	private OnCheckedItemsReconciledListener mOnCheckedItemsReconciledListener;
+
+	private OnFrameMetricsListener mOnFrameMetricsListener;
+
+	/**
+	 * Collects the timings of the current frame, null unless a {@link OnFrameMetricsListener} is set
+	 */
+	ListFrameMetrics mFrameMetrics;
+
 	/**
 	 * Controls how the next layout will happen
 	 */
@@ -214,6 +245,61 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 */
 	boolean mAdapterHasStableIds;
 
+	/**
+	 * Measured widths of the adapter items, null unless enabled with {@link #setItemWidthCacheEnabled(boolean)}
+	 */
+	ItemWidthCache mItemWidthCache;
+
+	/**
+	 * Item range changes notified by an {@link ItemRangeNotifier} adapter, applied at the next layout
+	 */
+	final ItemRangeOpQueue mPendingItemRangeOps = new ItemRangeOpQueue();
+
+	/**
+	 * The adapter, if it notifies item range changes
+	 */
+	private ItemRangeNotifier mItemRangeNotifier;
+
+	/**
+	 * The adapter, if it can update the views on screen with the payloads of the item changes
+	 */
+	private PayloadBindingAdapter mPayloadBindingAdapter;
+
+	private final ArrayList<Object> mPayloadsBuffer = new ArrayList<Object>();
+
+	/**
+	 * The data set observer, while it is registered with {@link #mItemRangeNotifier}
+	 */
+	private ItemRangeObserver mItemRangeObserver;
+
+	/**
+	 * New positions of the children after the pending item range changes have been applied, consumed by
+	 * {@link RecycleBin#fillActiveViews(int, int)}
+	 */
+	private int[] mRemappedChildPositions = new int[0];
+
+	/**
+	 * Children whose item has been changed and need to be bound again
+	 */
+	private boolean[] mRemappedChildChanged = new boolean[0];
+
+	/**
+	 * Number of valid entries in mRemappedChildPositions, -1 if there's no pending remapping
+	 */
+	private int mRemappedChildCount = -1;
+
+	private int mRemappedFirstPosition;
+
+	/**
+	 * Prefix sums of the item widths, null unless enabled with {@link #setItemOffsetIndexEnabled(boolean)}
+	 */
+	ItemOffsetIndex mItemOffsetIndex;
+
+	/**
+	 * The height measure spec the cached item widths have been measured with
+	 */
+	private int mItemHeightMeasureSpec;
+
 	/**
 	 * Indicates whether the list selector should be drawn on top of the children or behind
 	 */
@@ -335,6 +421,16 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 */
 	private FlingRunnable mFlingRunnable;
 
+	/**
+	 * Obtains the items ahead of the scroll direction once a scroll frame is done
+	 */
+	private PrefetchRunnable mPrefetchRunnable;
+
+	/**
+	 * Maximum number of items prefetched ahead of the scroll direction, 0 if prefetch is disabled
+	 */
+	private int mPrefetchMaxItemCount;
+
 	/**
 	 * Handles scrolling between positions within the list.
 	 */
@@ -393,12 +489,6 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 */
 	protected static final int OVERSCROLL_LIMIT_DIVISOR = 3;
 
-	/**
-	 * How many positions in either direction we will search to try to find a checked item with a stable ID that moved position
-	 * across a data set change. If the item isn't found it will be unselected.
-	 */
-	private static final int CHECK_POSITION_SEARCH_DISTANCE = 20;
-
 	/**
 	 * Used to request a layout when we changed touch mode
 	 */
@@ -720,6 +810,13 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 */
 	@Override
 	public void setAdapter( ListAdapter adapter ) {
+		unregisterItemRangeObserver();
+		mPendingItemRangeOps.clear();
+		mItemRangeNotifier = adapter instanceof ItemRangeNotifier ? (ItemRangeNotifier) adapter : null;
+
+		mPayloadBindingAdapter = adapter instanceof PayloadBindingAdapter ? (PayloadBindingAdapter) adapter : null;
+		mItemIdIndex.invalidate();
+
 		if ( adapter != null ) {
 			mAdapterHasStableIds = mAdapter.hasStableIds();
 			if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mAdapterHasStableIds &&
@@ -728,13 +825,23 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 		}
 
-		if ( mCheckStates != null ) {
-			mCheckStates.clear();
+		if ( mCheckedPositions != null ) {
+			mCheckedPositions.clear();
+			mCheckStatesDirty = true;
 		}
 
 		if ( mCheckedIdStates != null ) {
 			mCheckedIdStates.clear();
 		}
+
+		if ( mItemWidthCache != null ) {
+			mItemWidthCache.setKeyedById( adapter != null && mAdapterHasStableIds );
+			mItemWidthCache.clear();
+		}
+
+		if ( mItemOffsetIndex != null ) {
+			mItemOffsetIndex.clear();
+		}
 	}
 
 	/**
@@ -765,8 +872,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * @see #setChoiceMode(int)
 	 */
 	public boolean isItemChecked( int position ) {
-		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mCheckStates != null ) {
-			return mCheckStates.get( position, false );
+		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mCheckedPositions != null ) {
+			return mCheckedPositions.get( position );
 		}
 
 		return false;
@@ -780,8 +887,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * @see #setChoiceMode(int)
 	 */
 	public int getCheckedItemPosition() {
-		if ( mChoiceMode == ListView.CHOICE_MODE_SINGLE && mCheckStates != null && mCheckStates.size() == 1 ) {
-			return mCheckStates.keyAt( 0 );
+		if ( mChoiceMode == ListView.CHOICE_MODE_SINGLE && mCheckedPositions != null && !mCheckedPositions.isEmpty() ) {
+			return mCheckedPositions.nextSetBit( 0 );
 		}
 
 		return INVALID_POSITION;
@@ -792,10 +899,22 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * {@link #CHOICE_MODE_NONE}.
 	 * 
 	 * @return A SparseBooleanArray which will return true for each call to get(int position) where position is a position in the
-	 *         list, or <code>null</code> if the choice mode is set to {@link #CHOICE_MODE_NONE}.
+	 *         list, or <code>null</code> if the choice mode is set to {@link #CHOICE_MODE_NONE}. The array is reused until the
+	 *         checked states change and must not be modified, changes made to it do not affect the list.
+	 * @see #isItemChecked(int)
 	 */
 	public SparseArrayCompat<Boolean> getCheckedItemPositions() {
 		if ( mChoiceMode != ListView.CHOICE_MODE_NONE ) {
+			if ( mCheckStatesDirty || mCheckStates == null ) {
+				final SparseArrayCompat<Boolean> positions = new SparseArrayCompat<Boolean>( mCheckedItemCount );
+				if ( mCheckedPositions != null ) {
+					for ( int i = mCheckedPositions.nextSetBit( 0 ); i >= 0; i = mCheckedPositions.nextSetBit( i + 1 ) ) {
+						positions.append( i, Boolean.TRUE );
+					}
+				}
+				mCheckStates = positions;
+				mCheckStatesDirty = false;
+			}
 			return mCheckStates;
 		}
 		return null;
@@ -827,8 +946,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * Clear any choices previously set
 	 */
 	public void clearChoices() {
-		if ( mCheckStates != null ) {
-			mCheckStates.clear();
+		if ( mCheckedPositions != null ) {
+			mCheckedPositions.clear();
+			mCheckStatesDirty = true;
 		}
 		if ( mCheckedIdStates != null ) {
 			mCheckedIdStates.clear();
@@ -851,22 +971,15 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		// Start selection mode if needed. We don't need to if we're unchecking something.
-		if ( android.os.Build.VERSION.SDK_INT >= 11 ) {
-			if ( value && mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL && mChoiceActionMode == null ) {
-				if ( mMultiChoiceModeCallback == null ||
-						!((MultiChoiceModeWrapper)mMultiChoiceModeCallback).hasWrappedCallback() ) {
-					throw new IllegalStateException( "AbsListView: attempted to start selection mode " +
-							"for CHOICE_MODE_MULTIPLE_MODAL but no choice mode callback was " +
-							"supplied. Call setMultiChoiceModeListener to set a callback." );
-				}
-				mChoiceActionMode = startActionMode( (MultiChoiceModeWrapper)mMultiChoiceModeCallback );
-			}
+		if ( value ) {
+			startChoiceActionModeIfNeeded();
 		}
 
 		if ( mChoiceMode == ListView.CHOICE_MODE_MULTIPLE
 				|| ( android.os.Build.VERSION.SDK_INT >= 11 && mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL ) ) {
-			boolean oldValue = mCheckStates.get( position, false );
-			mCheckStates.put( position, value );
+			boolean oldValue = mCheckedPositions.get( position );
+			mCheckedPositions.set( position, value );
+			mCheckStatesDirty = true;
 			if ( mCheckedIdStates != null && mAdapter.hasStableIds() ) {
 				if ( value ) {
 					mCheckedIdStates.put( mAdapter.getItemId( position ), position );
@@ -890,20 +1003,22 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			// Clear all values if we're checking something, or unchecking the currently
 			// selected item
 			if ( value || isItemChecked( position ) ) {
-				mCheckStates.clear();
+				mCheckedPositions.clear();
+				mCheckStatesDirty = true;
 				if ( updateIds ) {
 					mCheckedIdStates.clear();
 				}
 			}
 			// this may end up selecting the value we just cleared but this way
-			// we ensure length of mCheckStates is 1, a fact getCheckedItemPosition relies on
+			// we ensure length of mCheckedPositions is 1, a fact getCheckedItemPosition relies on
 			if ( value ) {
-				mCheckStates.put( position, true );
+				mCheckedPositions.set( position );
+				mCheckStatesDirty = true;
 				if ( updateIds ) {
 					mCheckedIdStates.put( mAdapter.getItemId( position ), position );
 				}
 				mCheckedItemCount = 1;
-			} else if ( mCheckStates.size() == 0 || !mCheckStates.valueAt( 0 ) ) {
+			} else if ( mCheckedPositions.isEmpty() ) {
 				mCheckedItemCount = 0;
 			}
 		}
@@ -916,6 +1031,107 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 	}
 
+	/**
+	 * Sets the checked state of all the positions from <var>start</var> (inclusive) to <var>end</var> (exclusive) at once. This is
+	 * only valid if the choice mode has been set to {@link #CHOICE_MODE_MULTIPLE} or {@link #CHOICE_MODE_MULTIPLE_MODAL}; in
+	 * {@link #CHOICE_MODE_SINGLE} the range can only be unchecked, or checked if it contains a single position.<br />
+	 * The positional states are updated a word at a time, the multi choice listener is notified once for the whole range (see
+	 * {@link MultiChoiceModeBatchListener}) and the views on screen are refreshed once. Checked ids, if the adapter has stable
+	 * ids, still need one {@link ListAdapter#getItemId(int)} per position.
+	 * 
+	 * @param start
+	 *           first position of the range
+	 * @param end
+	 *           position after the last one of the range
+	 * @param value
+	 *           The new checked state for the items
+	 */
+	public void setItemsChecked( int start, int end, boolean value ) {
+		if ( mChoiceMode == ListView.CHOICE_MODE_NONE || mAdapter == null ) {
+			return;
+		}
+
+		start = Math.max( 0, start );
+		end = Math.min( end, mItemCount );
+		if ( start >= end ) {
+			return;
+		}
+
+		if ( mChoiceMode == ListView.CHOICE_MODE_SINGLE ) {
+			if ( !value ) {
+				final int checked = getCheckedItemPosition();
+				if ( checked >= start && checked < end ) {
+					setItemChecked( checked, false );
+				}
+			} else if ( end - start == 1 ) {
+				setItemChecked( start, true );
+			} else {
+				throw new IllegalStateException( "Cannot check more than one item in CHOICE_MODE_SINGLE" );
+			}
+			return;
+		}
+
+		if ( value ) {
+			startChoiceActionModeIfNeeded();
+			mCheckedPositions.set( start, end );
+		} else {
+			mCheckedPositions.clear( start, end );
+		}
+		mCheckStatesDirty = true;
+		mCheckedItemCount = mCheckedPositions.cardinality();
+
+		if ( mCheckedIdStates != null && mAdapter.hasStableIds() ) {
+			final ListAdapter adapter = mAdapter;
+			for ( int position = start; position < end; position++ ) {
+				if ( value ) {
+					// cheap when the ids grow with the positions
+					mCheckedIdStates.append( adapter.getItemId( position ), position );
+				} else {
+					mCheckedIdStates.delete( adapter.getItemId( position ) );
+				}
+			}
+		}
+
+		if ( android.os.Build.VERSION.SDK_INT >= 11 && mChoiceActionMode != null ) {
+			( (MultiChoiceModeWrapper) mMultiChoiceModeCallback ).onItemRangeCheckedStateChanged( (ActionMode) mChoiceActionMode,
+					start, end, value );
+		}
+
+		updateOnScreenCheckedViews();
+	}
+
+	/**
+	 * Checks all the items of the list, see {@link #setItemsChecked(int, int, boolean)}
+	 */
+	public void checkAll() {
+		setItemsChecked( 0, mItemCount, true );
+	}
+
+	/**
+	 * Unchecks all the items of the list. Unlike {@link #clearChoices()} the multi choice listener is notified and the views on
+	 * screen are refreshed, see {@link #setItemsChecked(int, int, boolean)}
+	 */
+	public void clearAll() {
+		setItemsChecked( 0, mItemCount, false );
+	}
+
+	/**
+	 * Starts the selection action mode in {@link #CHOICE_MODE_MULTIPLE_MODAL}, if it is not running yet
+	 */
+	private void startChoiceActionModeIfNeeded() {
+		if ( android.os.Build.VERSION.SDK_INT >= 11 ) {
+			if ( mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL && mChoiceActionMode == null ) {
+				if ( mMultiChoiceModeCallback == null ||
+						!((MultiChoiceModeWrapper)mMultiChoiceModeCallback).hasWrappedCallback() ) {
+					throw new IllegalStateException( "AbsListView: attempted to start selection mode " +
+							"for CHOICE_MODE_MULTIPLE_MODAL but no choice mode callback was " +
+							"supplied. Call setMultiChoiceModeListener to set a callback." );
+				}
+				mChoiceActionMode = startActionMode( (MultiChoiceModeWrapper)mMultiChoiceModeCallback );
+			}
+		}
+	}
+
 	@Override
 	public boolean performItemClick( View view, int position, long id ) {
 		boolean handled = false;
@@ -927,8 +1143,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 			if ( mChoiceMode == ListView.CHOICE_MODE_MULTIPLE
 					|| ( android.os.Build.VERSION.SDK_INT >= 11 && mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL && mChoiceActionMode != null ) ) {
-				boolean checked = !mCheckStates.get( position, false );
-				mCheckStates.put( position, checked );
+				boolean checked = !mCheckedPositions.get( position );
+				mCheckedPositions.set( position, checked );
+				mCheckStatesDirty = true;
 				if ( mCheckedIdStates != null && mAdapter.hasStableIds() ) {
 					if ( checked ) {
 						mCheckedIdStates.put( mAdapter.getItemId( position ), position );
@@ -949,16 +1166,17 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 				checkedStateChanged = true;
 			} else if ( mChoiceMode == ListView.CHOICE_MODE_SINGLE ) {
-				boolean checked = !mCheckStates.get( position, false );
+				boolean checked = !mCheckedPositions.get( position );
 				if ( checked ) {
-					mCheckStates.clear();
-					mCheckStates.put( position, true );
+					mCheckedPositions.clear();
+					mCheckedPositions.set( position );
+					mCheckStatesDirty = true;
 					if ( mCheckedIdStates != null && mAdapter.hasStableIds() ) {
 						mCheckedIdStates.clear();
 						mCheckedIdStates.put( mAdapter.getItemId( position ), position );
 					}
 					mCheckedItemCount = 1;
-				} else if ( mCheckStates.size() == 0 || !mCheckStates.valueAt( 0 ) ) {
+				} else if ( mCheckedPositions.isEmpty() ) {
 					mCheckedItemCount = 0;
 				}
 				checkedStateChanged = true;
@@ -989,9 +1207,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			final int position = firstPos + i;
 
 			if ( child instanceof Checkable ) {
-				( (Checkable) child ).setChecked( mCheckStates.get( position, false ) );
+				( (Checkable) child ).setChecked( mCheckedPositions.get( position ) );
 			} else if ( useActivated ) {
-				child.setActivated( mCheckStates.get( position, false ) );
+				child.setActivated( mCheckedPositions.get( position ) );
 			}
 		}
 	}
@@ -1028,8 +1246,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		if ( mChoiceMode != ListView.CHOICE_MODE_NONE ) {
-			if ( mCheckStates == null ) {
-				mCheckStates = new SparseArrayCompat<Boolean>();
+			if ( mCheckedPositions == null ) {
+				mCheckedPositions = new IntBitSet();
+				mCheckStatesDirty = true;
 			}
 			if ( mCheckedIdStates == null && mAdapter != null && mAdapter.hasStableIds() ) {
 				mCheckedIdStates = new LongSparseArray<Integer>();
@@ -1114,6 +1333,234 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		return mSmoothScrollbarEnabled;
 	}
 
+	/**
+	 * When enabled the list remembers the measured width of every item it has laid out or measured, keyed by position or, if
+	 * the adapter has stable ids, by item id. A wrap_content list then needs to measure each item only once instead of walking
+	 * the whole adapter on every measure pass.<br />
+	 * The cache is dropped when the adapter or the height measure spec change, and when the adapter notifies a data set change.
+	 * Id keyed widths are kept across item range insertions, removals and moves, while the widths of the items notified as
+	 * changed are measured again.<br />
+	 * Only enable this if an item width depends on its content alone, and not for instance on the list width.
+	 * 
+	 * @param enabled
+	 *           Whether or not to cache the item widths
+	 */
+	public void setItemWidthCacheEnabled( boolean enabled ) {
+		if ( enabled ) {
+			if ( mItemWidthCache == null ) {
+				mItemWidthCache = new ItemWidthCache();
+				mItemWidthCache.setKeyedById( mAdapter != null && mAdapterHasStableIds );
+			}
+		} else {
+			mItemWidthCache = null;
+		}
+	}
+
+	/**
+	 * @return True if the item width cache is enabled
+	 * @see #setItemWidthCacheEnabled(boolean)
+	 */
+	public boolean isItemWidthCacheEnabled() {
+		return mItemWidthCache != null;
+	}
+
+	/**
+	 * Enables the prefetch of the items about to be scrolled into view. After every frame of a touch scroll or of a fling the
+	 * list uses what is left of the frame time to obtain, bind and measure the next items in the scroll direction, so that they
+	 * only need to be attached once they become visible.<br />
+	 * The number of items prefetched depends on the scroll velocity, up to <var>count</var> items.
+	 * 
+	 * @param count
+	 *           Maximum number of items to prefetch, 0 to disable prefetch (the default)
+	 */
+	public void setPrefetchMaxItemCount( int count ) {
+		if ( count < 0 ) {
+			throw new IllegalArgumentException( "count must be >= 0" );
+		}
+		mPrefetchMaxItemCount = count;
+		if ( count == 0 ) {
+			if ( mPrefetchRunnable != null ) {
+				removeCallbacks( mPrefetchRunnable );
+			}
+			mRecycler.clearPrefetchedViews();
+		}
+	}
+
+	/**
+	 * @return the maximum number of items to prefetch, 0 if prefetch is disabled
+	 * @see #setPrefetchMaxItemCount(int)
+	 */
+	public int getPrefetchMaxItemCount() {
+		return mPrefetchMaxItemCount;
+	}
+
+	/**
+	 * Schedules the prefetch of the items ahead of the scroll, to be run once the current frame has been drawn.
+	 * 
+	 * @param frameStartNanos
+	 *           {@link System#nanoTime()} at the beginning of the current frame
+	 * @param incrementalDeltaX
+	 *           last scroll offset passed to {@link #trackMotionScroll(int, int)}
+	 * @param velocity
+	 *           current scroll velocity, in pixels per second
+	 */
+	void schedulePrefetch( long frameStartNanos, int incrementalDeltaX, float velocity ) {
+		if ( mPrefetchMaxItemCount == 0 || incrementalDeltaX == 0 ) {
+			return;
+		}
+		if ( mPrefetchRunnable == null ) {
+			mPrefetchRunnable = new PrefetchRunnable();
+		}
+		mPrefetchRunnable.schedule( frameStartNanos, incrementalDeltaX < 0 ? 1 : -1, velocity );
+	}
+
+	/**
+	 * Measures and lays out a view obtained ahead of time, using the same specs the view would have when added to the list.
+	 * 
+	 * @return false if the view cannot be prepared, in which case it will not be prefetched
+	 */
+	boolean measurePrefetchedView( View child, int position ) {
+		return false;
+	}
+
+	/**
+	 * When enabled the list keeps a prefix sum index of the measured item widths, using the average width for the items not
+	 * measured yet. The index is used to compute an accurate scrollbar when smooth scrollbar is enabled, to plan
+	 * {@link #smoothScrollToPositionFromLeft(int, int)} in pixels rather than in items, and it allows to convert positions to
+	 * pixel offsets and back using {@link #getOffsetForPosition(int)} and {@link #getPositionForOffset(int)}.
+	 * 
+	 * @param enabled
+	 *           Whether or not to index the item widths
+	 */
+	public void setItemOffsetIndexEnabled( boolean enabled ) {
+		if ( enabled ) {
+			if ( mItemOffsetIndex == null ) {
+				mItemOffsetIndex = new ItemOffsetIndex();
+				mItemOffsetIndex.setCount( mItemCount );
+				final int childCount = getChildCount();
+				for ( int i = 0; i < childCount; i++ ) {
+					mItemOffsetIndex.setWidth( mFirstPosition + i, getChildAt( i ).getWidth() );
+				}
+			}
+		} else {
+			mItemOffsetIndex = null;
+		}
+	}
+
+	/**
+	 * @return True if the item offset index is enabled
+	 * @see #setItemOffsetIndexEnabled(boolean)
+	 */
+	public boolean isItemOffsetIndexEnabled() {
+		return mItemOffsetIndex != null;
+	}
+
+	/**
+	 * Returns the distance in pixels between the left edge of the first item and the left edge of the item at the given position,
+	 * dividers included and list padding excluded. Widths of the items which have never been measured are estimated.
+	 * 
+	 * @param position
+	 *           adapter position
+	 * @return the offset of the item, or -1 if the offset index is not enabled or the list has not been laid out yet
+	 * @see #setItemOffsetIndexEnabled(boolean)
+	 */
+	public int getOffsetForPosition( int position ) {
+		if ( !isItemOffsetIndexReady() ) {
+			return -1;
+		}
+		return (int) Math.min( Integer.MAX_VALUE, mItemOffsetIndex.getOffset( position ) );
+	}
+
+	/**
+	 * Returns the position of the item found at the given distance in pixels from the left edge of the first item.
+	 * 
+	 * @param offset
+	 *           distance from the left edge of the first item, list padding excluded
+	 * @return the adapter position, or {@link #INVALID_POSITION} if the offset index is not enabled or the list has not been laid
+	 *         out yet
+	 * @see #setItemOffsetIndexEnabled(boolean)
+	 */
+	public int getPositionForOffset( int offset ) {
+		if ( !isItemOffsetIndexReady() ) {
+			return INVALID_POSITION;
+		}
+		return mItemOffsetIndex.getPosition( offset );
+	}
+
+	/**
+	 * @return true if the offset index is enabled and holds at least one measured width for the current items
+	 */
+	boolean isItemOffsetIndexReady() {
+		if ( mItemOffsetIndex == null || mItemCount == 0 ) {
+			return false;
+		}
+		mItemOffsetIndex.setCount( mItemCount );
+		mItemOffsetIndex.setSpacing( getItemSpacing() );
+		return mItemOffsetIndex.getKnownCount() > 0;
+	}
+
+	/**
+	 * Returns the horizontal distance to scroll to bring the left edge of the item at <var>position</var> at <var>left</var>
+	 * pixels from the left edge of the list. Only valid if {@link #isItemOffsetIndexReady()} and there are children.
+	 */
+	long getIndexedScrollDistance( int position, int left ) {
+		final long currentOffset = mItemOffsetIndex.getOffset( mFirstPosition ) - getChildAt( 0 ).getLeft();
+		return mItemOffsetIndex.getOffset( position ) - left - currentOffset;
+	}
+
+	/**
+	 * Space between two consecutive items, used by the offset index.
+	 */
+	int getItemSpacing() {
+		return 0;
+	}
+
+	/**
+	 * The recorded item widths are only valid for the height measure spec they were measured with, drop them if it changes.
+	 */
+	void setItemHeightMeasureSpec( int heightMeasureSpec ) {
+		if ( mItemHeightMeasureSpec != heightMeasureSpec ) {
+			mItemHeightMeasureSpec = heightMeasureSpec;
+			if ( mItemWidthCache != null ) {
+				mItemWidthCache.clear();
+			}
+			if ( mItemOffsetIndex != null ) {
+				mItemOffsetIndex.clear();
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached width of the item at the given position, or {@link ItemWidthCache#UNKNOWN} if the width is not known
+	 * or the cache is disabled
+	 */
+	int getCachedItemWidth( int position ) {
+		if ( mItemWidthCache == null ) {
+			return ItemWidthCache.UNKNOWN;
+		}
+		return mItemWidthCache.get( position, getItemIdForWidthCache( position ) );
+	}
+
+	/**
+	 * Stores the measured width of the item at the given position in the width cache and in the offset index, if enabled
+	 */
+	void recordItemWidth( int position, int width ) {
+		if ( mItemWidthCache != null ) {
+			mItemWidthCache.put( position, getItemIdForWidthCache( position ), width );
+		}
+		if ( mItemOffsetIndex != null ) {
+			mItemOffsetIndex.setCount( mItemCount );
+			mItemOffsetIndex.setWidth( position, width );
+		}
+	}
+
+	private long getItemIdForWidthCache( int position ) {
+		if ( !mItemWidthCache.isKeyedById() || mAdapter == null || position < 0 || position >= mAdapter.getCount() ) {
+			return INVALID_COL_ID;
+		}
+		return mAdapter.getItemId( position );
+	}
+
 	/**
 	 * Set the listener that will receive notifications every time the list scrolls.
 	 * 
@@ -1297,7 +1744,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		String filter;
 		boolean inActionMode;
 		int checkedItemCount;
-		SparseArrayCompat<Boolean> checkState;
+		IntBitSet checkState;
 		LongSparseArray<Integer> checkIdState;
 
 		/**
@@ -1320,7 +1767,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			filter = in.readString();
 			inActionMode = in.readByte() != 0;
 			checkedItemCount = in.readInt();
-			checkState = readSparseBooleanArray( in );
+			checkState = readBitSet( in );
 			checkIdState = readSparseLongArray( in );
 		}
 		
@@ -1337,17 +1784,15 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			return array;
 		}
 
-		private SparseArrayCompat<Boolean> readSparseBooleanArray( Parcel in ) {
+		private IntBitSet readBitSet( Parcel in ) {
 			if( LOG_ENABLED ) {
-				Log.i( TAG, "readSparseBooleanArray" );
+				Log.i( TAG, "readBitSet" );
 			}
-			int N = in.readInt();
-			if ( N < 0 ) {
+			final long[] words = in.createLongArray();
+			if ( words == null ) {
 				return null;
 			}
-			SparseArrayCompat<Boolean> sa = new SparseArrayCompat<Boolean>( N );
-			readSparseBooleanArrayInternal( sa, in, N );
-			return sa;
+			return IntBitSet.valueOf( words );
 		}
 		
 		private void readSparseLongArrayInternal( LongSparseArray<Integer> outVal, Parcel in, int N ) {
@@ -1362,18 +1807,6 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 		}
 
-		private void readSparseBooleanArrayInternal( SparseArrayCompat<Boolean> outVal, Parcel in, int N ) {
-			while ( N > 0 ) {
-				int key = in.readInt();
-				boolean value = in.readByte() == 1;
-				if( LOG_ENABLED ) {
-					Log.i( TAG, "Unmarshalling key=" + key + " value=" + value );
-				}
-				outVal.append( key, value );
-				N--;
-			}
-		}
-		
 		private void writeSparseLongArray( LongSparseArray<Integer> array, Parcel out ) {
 			if( LOG_ENABLED ) {
 				Log.i( TAG, "writeSparseLongArray" );
@@ -1386,22 +1819,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 		}
 
-		private void writeSparseBooleanArray( SparseArrayCompat<Boolean> val, Parcel out ) {
+		private void writeBitSet( IntBitSet val, Parcel out ) {
 			if( LOG_ENABLED ) {
-				Log.i( TAG, "writeSparseBooleanArray" );
-			}
-			if ( val == null ) {
-				out.writeInt( -1 );
-				return;
-			}
-			int N = val.size();
-			out.writeInt( N );
-			int i = 0;
-			while ( i < N ) {
-				out.writeInt( val.keyAt( i ) );
-				out.writeByte( (byte) ( val.valueAt( i ) ? 1 : 0 ) );
-				i++;
+				Log.i( TAG, "writeBitSet" );
 			}
+			// one bit per position, trailing empty words are not written
+			out.writeLongArray( val != null ? val.toLongArray() : null );
 		}
 
 		@Override
@@ -1424,7 +1847,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				Log.d( TAG, "writing checkIdState: " + checkIdState );
 			}
 			
-			writeSparseBooleanArray( checkState, out );
+			writeBitSet( checkState, out );
 			writeSparseLongArray( checkIdState, out );
 		}
 
@@ -1525,13 +1948,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		ss.inActionMode = android.os.Build.VERSION.SDK_INT >= 11 && mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL
 				&& mChoiceActionMode != null;
 
-		if ( mCheckStates != null ) {
-			try {
-				ss.checkState = mCheckStates.clone();
-			} catch( NoSuchMethodError e ) {
-				e.printStackTrace();
-				ss.checkState = new SparseArrayCompat<Boolean>();
-			}
+		if ( mCheckedPositions != null ) {
+			ss.checkState = mCheckedPositions.clone();
 		}
 		if ( mCheckedIdStates != null ) {
 			final LongSparseArray<Integer> idState = new LongSparseArray<Integer>();
@@ -1584,7 +2002,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		if ( ss.checkState != null ) {
-			mCheckStates = ss.checkState;
+			mCheckedPositions = ss.checkState;
+			mCheckStatesDirty = true;
 		}
 
 		if ( ss.checkIdState != null ) {
@@ -1592,6 +2011,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		mCheckedItemCount = ss.checkedItemCount;
+		mCheckedIdsNeedConfirm = true;
 
 		if ( android.os.Build.VERSION.SDK_INT >= 11 ) {
 			if ( ss.inActionMode && mChoiceMode == ListView.CHOICE_MODE_MULTIPLE_MODAL && mMultiChoiceModeCallback != null ) {
@@ -1648,7 +2068,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	protected int computeHorizontalScrollExtent() {
 		final int count = getChildCount();
 		if ( count > 0 ) {
-			if ( mSmoothScrollbarEnabled ) {
+			if ( mSmoothScrollbarEnabled && isItemOffsetIndexReady() ) {
+				return getWidth();
+			} else if ( mSmoothScrollbarEnabled ) {
 				int extent = count * 100;
 
 				View view = getChildAt( 0 );
@@ -1678,7 +2100,10 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		final int firstPosition = mFirstPosition;
 		final int childCount = getChildCount();
 		if ( firstPosition >= 0 && childCount > 0 ) {
-			if ( mSmoothScrollbarEnabled ) {
+			if ( mSmoothScrollbarEnabled && isItemOffsetIndexReady() ) {
+				final long offset = mItemOffsetIndex.getOffset( firstPosition ) - getChildAt( 0 ).getLeft() + mListPadding.left + getScrollX();
+				return (int) Math.max( 0, Math.min( Integer.MAX_VALUE, offset ) );
+			} else if ( mSmoothScrollbarEnabled ) {
 				final View view = getChildAt( 0 );
 				final int left = view.getLeft();
 				int width = view.getWidth();
@@ -1705,7 +2130,10 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	@Override
 	protected int computeHorizontalScrollRange() {
 		int result;
-		if ( mSmoothScrollbarEnabled ) {
+		if ( mSmoothScrollbarEnabled && getChildCount() > 0 && isItemOffsetIndexReady() ) {
+			final long range = mItemOffsetIndex.getTotalWidth() + mListPadding.left + mListPadding.right + Math.abs( getScrollX() );
+			result = (int) Math.min( Integer.MAX_VALUE, range );
+		} else if ( mSmoothScrollbarEnabled ) {
 			result = Math.max( mItemCount * 100, 0 );
 			if ( getScrollX() != 0 ) {
 				// Compensate for overscroll
@@ -1916,23 +2344,54 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * 
 	 * @return A view displaying the data associated with the specified position
 	 */
-	@SuppressLint ( "NewApi" )
 	protected View obtainView( int position, boolean[] isScrap ) {
+		final ListFrameMetrics metrics = mFrameMetrics;
+		if ( metrics == null ) {
+			return doObtainView( position, isScrap );
+		}
+
+		final long start = System.nanoTime();
+		final View child = doObtainView( position, isScrap );
+		metrics.addTiming( ListFrameMetrics.OBTAIN_VIEW, start );
+		return child;
+	}
+
+	@SuppressLint ( "NewApi" )
+	private View doObtainView( int position, boolean[] isScrap ) {
 		isScrap[0] = false;
 		View scrapView;
 
+		scrapView = mRecycler.getPrefetchedView( position );
+		if ( scrapView != null ) {
+			// already bound and measured, LayoutParams#forceAdd tells if it has to be added or attached
+			isScrap[0] = true;
+			return scrapView;
+		}
+
 		scrapView = mRecycler.getTransientStateView( position );
 		if ( scrapView != null ) {
 			return scrapView;
 		}
 
-		scrapView = mRecycler.getScrapView( position );
+		// after a data set change the view which displayed the same item is the best candidate
+		scrapView = mRecycler.getActiveViewById( position );
+		boolean scrapHit = false;
+		if ( scrapView == null ) {
+			final int scrapHits = mFrameMetrics != null ? mRecycler.getScrapHitCount() : 0;
+			scrapView = mRecycler.getScrapView( position );
+			scrapHit = mFrameMetrics != null && mRecycler.getScrapHitCount() != scrapHits;
+		}
 
 		View child;
 		if ( scrapView != null ) {
 			child = mAdapter.getView( position, scrapView, this );
 
-			if ( android.os.Build.VERSION.SDK_INT >= 16 ) {
+			mRecycler.countObtainedView( scrapView, child == scrapView );
+			if ( mFrameMetrics != null ) {
+				mFrameMetrics.addViewObtained( child == scrapView, scrapHit && child == scrapView );
+			}
+
+			if ( android.os.Build.VERSION.SDK_INT >= 16 ) {
 				if ( child.getImportantForAccessibility() == IMPORTANT_FOR_ACCESSIBILITY_AUTO ) {
 					child.setImportantForAccessibility( IMPORTANT_FOR_ACCESSIBILITY_YES );
 				}
@@ -1950,6 +2409,11 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		} else {
 			child = mAdapter.getView( position, null, this );
 
+			mRecycler.countObtainedView( null, false );
+			if ( mFrameMetrics != null ) {
+				mFrameMetrics.addViewObtained( false, false );
+			}
+
 			if ( android.os.Build.VERSION.SDK_INT >= 16 ) {
 				if ( child.getImportantForAccessibility() == IMPORTANT_FOR_ACCESSIBILITY_AUTO ) {
 					child.setImportantForAccessibility( IMPORTANT_FOR_ACCESSIBILITY_YES );
@@ -2269,7 +2733,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					( (TransitionDrawable) d ).resetTransition();
 				}
 			}
-			if ( longClickable && !mDataChanged ) {
+			if ( longClickable && !hasPendingDataChange() ) {
 				if ( mPendingCheckForKeyLongPress == null ) {
 					mPendingCheckForKeyLongPress = new CheckForKeyLongPress();
 				}
@@ -2359,9 +2823,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		if ( mAdapter != null && mDataSetObserver == null ) {
 			mDataSetObserver = new AdapterDataSetObserver();
 			mAdapter.registerDataSetObserver( mDataSetObserver );
+			registerItemRangeObserver();
 
 			// Data may have changed while we were detached. Refresh.
 			mDataChanged = true;
+			mCheckedIdsNeedConfirm = true;
+			mPendingItemRangeOps.clear();
 			mOldItemCount = mItemCount;
 			mItemCount = mAdapter.getCount();
 		}
@@ -2383,10 +2850,15 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		if ( mAdapter != null && mDataSetObserver != null ) {
 			mAdapter.unregisterDataSetObserver( mDataSetObserver );
 			mDataSetObserver = null;
+			unregisterItemRangeObserver();
 		}
 
 		if ( mFlingRunnable != null ) {
-			removeCallbacks( mFlingRunnable );
+			mViewHelper.removeFrameCallback( mFlingRunnable );
+		}
+
+		if ( mPrefetchRunnable != null ) {
+			removeCallbacks( mPrefetchRunnable );
 		}
 
 		if ( mPositionScroller != null ) {
@@ -2417,7 +2889,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		if ( !hasWindowFocus ) {
 			setChildrenDrawingCacheEnabled( false );
 			if ( mFlingRunnable != null ) {
-				removeCallbacks( mFlingRunnable );
+				mViewHelper.removeFrameCallback( mFlingRunnable );
 				// let the fling runnable report it's new state which
 				// should be idle
 				mFlingRunnable.endFling();
@@ -2498,7 +2970,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		public void run() {
 			// The data has changed since we posted this action in the event queue,
 			// bail out before bad things happen
-			if ( mDataChanged ) return;
+			if ( hasPendingDataChange() ) return;
 
 			final ListAdapter adapter = mAdapter;
 			final int motionPosition = mClickMotionPosition;
@@ -2526,7 +2998,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				final long longPressId = mAdapter.getItemId( mMotionPosition );
 
 				boolean handled = false;
-				if ( sameWindow() && !mDataChanged ) {
+				if ( sameWindow() && !hasPendingDataChange() ) {
 					handled = performLongPress( child, longPressPosition, longPressId );
 				}
 				if ( handled ) {
@@ -2548,7 +3020,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				int index = mSelectedPosition - mFirstPosition;
 				View v = getChildAt( index );
 
-				if ( !mDataChanged ) {
+				if ( !hasPendingDataChange() ) {
 					boolean handled = false;
 					if ( sameWindow() ) {
 						handled = performLongPress( v, mSelectedPosition, mSelectedColId );
@@ -2729,7 +3201,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				if ( child != null && !child.hasFocusable() ) {
 					mLayoutMode = LAYOUT_NORMAL;
 
-					if ( !mDataChanged ) {
+					if ( !hasPendingDataChange() ) {
 						child.setPressed( true );
 						setPressed( true );
 						layoutChildren();
@@ -2809,6 +3281,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	}
 
 	private void scrollIfNeeded( int x ) {
+		final long frameStartNanos = System.nanoTime();
 		final int rawDeltaX = x - mMotionX;
 		final int deltaX = rawDeltaX - mMotionCorrection;
 		int incrementalDeltaX = mLastX != Integer.MIN_VALUE ? x - mLastX : deltaX;
@@ -2845,6 +3318,11 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				boolean atEdge = false;
 				if ( incrementalDeltaX != 0 ) {
 					atEdge = trackMotionScroll( deltaX, incrementalDeltaX );
+
+					if ( !atEdge && mPrefetchMaxItemCount > 0 && mVelocityTracker != null ) {
+						mVelocityTracker.computeCurrentVelocity( 1000, mMaximumVelocity );
+						schedulePrefetch( frameStartNanos, incrementalDeltaX, mVelocityTracker.getXVelocity( mActivePointerId ) );
+					}
 				}
 
 				// Check to see if we have bumped into the scroll limit
@@ -3065,7 +3543,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 						final int x = (int) ev.getX();
 						final int y = (int) ev.getY();
 						int motionPosition = pointToPosition( x, y );
-						if ( !mDataChanged ) {
+						if ( !hasPendingDataChange() ) {
 							if ( ( mTouchMode != TOUCH_MODE_FLING ) && ( motionPosition >= 0 )
 									&& ( getAdapter().isEnabled( motionPosition ) ) ) {
 								// User clicked on an actual view (and was not stopping a fling).
@@ -3118,7 +3596,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				}
 				final int x = (int) ev.getX( pointerIndex );
 
-				if ( mDataChanged ) {
+				if ( hasPendingDataChange() ) {
 					// Re-sync everything if data has been changed
 					// since the scroll operation can query the adapter.
 					layoutChildren();
@@ -3174,7 +3652,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 								}
 								mLayoutMode = LAYOUT_NORMAL;
 								
-								if ( !mDataChanged && mAdapter.isEnabled( motionPosition ) ) {
+								if ( !hasPendingDataChange() && mAdapter.isEnabled( motionPosition ) ) {
 									mTouchMode = TOUCH_MODE_TAP;
 									setSelectedPositionInt( mMotionPosition );
 									layoutChildren();
@@ -3197,7 +3675,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 											mTouchMode = TOUCH_MODE_REST;
 											child.setPressed( false );
 											setPressed( false );
-											if ( !mDataChanged ) {
+											if ( !hasPendingDataChange() ) {
 												performClick.run();
 											}
 										}
@@ -3209,7 +3687,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 									updateSelectorState();
 								}
 								return true;
-							} else if ( !mDataChanged && mAdapter.isEnabled( motionPosition ) ) {
+							} else if ( !hasPendingDataChange() && mAdapter.isEnabled( motionPosition ) ) {
 								performClick.run();
 							}
 						}
@@ -3442,6 +3920,24 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 */
 	@Override
 	public void draw( Canvas canvas ) {
+		final ListFrameMetrics metrics = mFrameMetrics;
+		if ( metrics == null ) {
+			drawList( canvas );
+			return;
+		}
+
+		final long start = System.nanoTime();
+		drawList( canvas );
+		metrics.addTiming( ListFrameMetrics.DRAW, start );
+
+		metrics.endFrame( mViewHelper.getFrameIntervalNanos() );
+		if ( mOnFrameMetricsListener != null ) {
+			mOnFrameMetricsListener.onFrameMetrics( this, metrics );
+		}
+		metrics.clearFrame();
+	}
+
+	private void drawList( Canvas canvas ) {
 		super.draw( canvas );
 		if ( mEdgeGlowTop != null ) {
 			final int scrollX = getScrollX();
@@ -3669,7 +4165,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * {@link #run()}. A FlingRunnable will keep re-posting itself until the fling is done.
 	 * 
 	 */
-	private class FlingRunnable implements Runnable {
+	private class FlingRunnable extends FrameCallback {
 
 		/**
 		 * Tracks the decay of a fling scroll
@@ -3718,14 +4214,14 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			mScroller.setInterpolator( null );
 			mScroller.fling( initialX, 0, initialVelocity, 0, 0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE );
 			mTouchMode = TOUCH_MODE_FLING;
-			mViewHelper.postOnAnimation( this );
+			mViewHelper.postFrameCallback( this );
 		}
 
 		void startSpringback() {
 			if ( mScroller.springBack( getScrollX(), 0, 0, 0, 0, 0 ) ) {
 				mTouchMode = TOUCH_MODE_OVERFLING;
 				invalidate();
-				mViewHelper.postOnAnimation( this );
+				mViewHelper.postFrameCallback( this );
 			} else {
 				mTouchMode = TOUCH_MODE_REST;
 				reportScrollStateChange( OnScrollListener.SCROLL_STATE_IDLE );
@@ -3737,7 +4233,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			mScroller.fling( getScrollX(), 0, initialVelocity, 0, Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 0, getWidth(), 0 );
 			mTouchMode = TOUCH_MODE_OVERFLING;
 			invalidate();
-			mViewHelper.postOnAnimation( this );
+			mViewHelper.postFrameCallback( this );
 		}
 
 		void edgeReached( int delta ) {
@@ -3758,7 +4254,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				}
 			}
 			invalidate();
-			mViewHelper.postOnAnimation( this );
+			mViewHelper.postFrameCallback( this );
 		}
 
 		void startScroll( int distance, int duration, boolean linear ) {
@@ -3767,13 +4263,13 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			mScroller.setInterpolator( linear ? sLinearInterpolator : null );
 			mScroller.startScroll( initialX, 0, distance, 0, duration );
 			mTouchMode = TOUCH_MODE_FLING;
-			mViewHelper.postOnAnimation( this );
+			mViewHelper.postFrameCallback( this );
 		}
 
 		void endFling() {
 			mTouchMode = TOUCH_MODE_REST;
 
-			removeCallbacks( this );
+			mViewHelper.removeFrameCallback( this );
 			removeCallbacks( mCheckFlywheel );
 
 			reportScrollStateChange( OnScrollListener.SCROLL_STATE_IDLE );
@@ -3789,7 +4285,10 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		@Override
-		public void run() {
+		public void doFrame( long frameTimeNanos ) {
+			// the scroller works in the animation time base, in milliseconds
+			final long frameTimeMillis = frameTimeNanos / 1000000;
+
 			switch ( mTouchMode ) {
 				default:
 					endFling();
@@ -3801,7 +4300,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					}
 					// Fall through
 				case TOUCH_MODE_FLING: {
-					if ( mDataChanged ) {
+
+					if ( hasPendingDataChange() ) {
 						layoutChildren();
 					}
 
@@ -3811,7 +4311,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					}
 
 					final OverScroller scroller = mScroller;
-					boolean more = scroller.computeScrollOffset();
+					boolean more = scroller.computeScrollOffset( frameTimeMillis );
 					final int x = scroller.getCurrX();
 
 					// Flip sign to convert finger direction to list items direction
@@ -3864,7 +4364,11 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					if ( more && !atEnd ) {
 						if ( atEdge ) invalidate();
 						mLastFlingX = x;
-						mViewHelper.postOnAnimation( this );
+						mViewHelper.postFrameCallback( this );
+						// prefetching is optional work, skip it when this frame is already late
+						if ( mViewHelper.getRemainingFrameNanos( frameTimeNanos ) > 0 ) {
+							schedulePrefetch( frameTimeNanos, delta, scroller.getCurrVelocity() );
+						}
 					} else {
 						endFling();
 
@@ -3874,7 +4378,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 				case TOUCH_MODE_OVERFLING: {
 					final OverScroller scroller = mScroller;
-					if ( scroller.computeScrollOffset() ) {
+					if ( scroller.computeScrollOffset( frameTimeMillis ) ) {
 						final int scrollX = getScrollX();
 						final int currX = scroller.getCurrX();
 						final int deltaX = currX - scrollX;
@@ -3893,7 +4397,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 							}
 						} else {
 							invalidate();
-							mViewHelper.postOnAnimation( this );
+							mViewHelper.postFrameCallback( this );
 						}
 					} else {
 						endFling();
@@ -3904,6 +4408,119 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 	}
 
+	/**
+	 * Obtains, binds and measures the items which are about to be scrolled into view and parks them in the {@link RecycleBin}.
+	 * Runs after the frame which scheduled it has been drawn, and only as long as the frame time is not over.
+	 */
+	private class PrefetchRunnable implements Runnable {
+
+		/**
+		 * How far in the future, at the current velocity, items are prefetched
+		 */
+		private static final int LOOKAHEAD_MILLIS = 250;
+
+		private final long mFrameIntervalNanos;
+
+		private long mFrameStartNanos;
+
+		/**
+		 * 1 to prefetch the items after the last child, -1 for the ones before the first child
+		 */
+		private int mDirection;
+
+		private float mVelocity;
+
+		/**
+		 * Running average of the time needed to obtain and measure a view
+		 */
+		private long mAverageCostNanos;
+
+		PrefetchRunnable() {
+			mFrameIntervalNanos = mViewHelper.getFrameIntervalNanos();
+		}
+
+		void schedule( long frameStartNanos, int direction, float velocity ) {
+			mFrameStartNanos = frameStartNanos;
+			mDirection = direction;
+			mVelocity = velocity;
+			removeCallbacks( this );
+			post( this );
+		}
+
+		@Override
+		public void run() {
+			final int childCount = getChildCount();
+			if ( hasPendingDataChange() || mAdapter == null || childCount == 0 || mItemCount == 0 ) {
+				return;
+			}
+
+			final int firstPosition = mFirstPosition;
+			final int lastPosition = firstPosition + childCount - 1;
+			final int maxCount = mPrefetchMaxItemCount;
+
+			// views left behind by a change of direction won't be needed anymore
+			mRecycler.trimPrefetchedViews( firstPosition - maxCount, lastPosition + maxCount );
+
+			final int count = getLookahead( childCount, maxCount );
+			final long deadline = mFrameStartNanos + mFrameIntervalNanos;
+			int position = mDirection > 0 ? lastPosition + 1 : firstPosition - 1;
+
+			// the prefetch runs after the frame has been drawn, it's not part of any frame metrics
+			final ListFrameMetrics metrics = mFrameMetrics;
+			mFrameMetrics = null;
+			try {
+				for ( int i = 0; i < count && position >= 0 && position < mItemCount; i++, position += mDirection ) {
+					if ( mRecycler.hasPrefetchedView( position ) ) {
+						continue;
+					}
+
+					final long start = System.nanoTime();
+					if ( start + mAverageCostNanos > deadline ) {
+						break;
+					}
+
+					if ( !prefetch( position ) ) {
+						break;
+					}
+
+					final long cost = System.nanoTime() - start;
+					mAverageCostNanos = mAverageCostNanos == 0 ? cost : ( mAverageCostNanos * 3 + cost ) / 4;
+				}
+			} finally {
+				mFrameMetrics = metrics;
+			}
+		}
+
+		private int getLookahead( int childCount, int maxCount ) {
+			final int averageWidth = ( getChildAt( childCount - 1 ).getRight() - getChildAt( 0 ).getLeft() ) / childCount;
+			if ( averageWidth <= 0 ) {
+				return 1;
+			}
+			final int count = 1 + (int) ( Math.abs( mVelocity ) * LOOKAHEAD_MILLIS / 1000 / averageWidth );
+			return Math.min( count, maxCount );
+		}
+
+		private boolean prefetch( int position ) {
+			if ( !mRecycler.shouldRecycleViewType( mAdapter.getItemViewType( position ) ) ) {
+				// headers, footers and ignored views are never recycled, no point in creating them early
+				return true;
+			}
+
+			final boolean[] isScrap = mIsScrap;
+			final View child = obtainView( position, isScrap );
+
+			if ( !measurePrefetchedView( child, position ) ) {
+				mRecycler.addScrapView( child, position );
+				return false;
+			}
+
+			// a view which was not in the scrap heap has never been attached
+			( (LayoutParams) child.getLayoutParams() ).forceAdd = !isScrap[0];
+			mRecycler.addPrefetchedView( position, child );
+			return true;
+		}
+	}
+
 	public class PositionScroller implements Runnable {
 
 		private static final int SCROLL_DURATION = 200;
@@ -3930,7 +4547,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		void start( final int position ) {
 			stop();
 
-			if ( mDataChanged ) {
+			if ( hasPendingDataChange() ) {
 				// Wait until we're back in a stable state to try this.
 				mPositionScrollAfterLayout = new Runnable() {
 
@@ -3984,7 +4601,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				return;
 			}
 
-			if ( mDataChanged ) {
+			if ( hasPendingDataChange() ) {
 				// Wait until we're back in a stable state to try this.
 				mPositionScrollAfterLayout = new Runnable() {
 
@@ -4063,7 +4680,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		void startWithOffset( final int position, int offset, final int duration ) {
 			stop();
 
-			if ( mDataChanged ) {
+			if ( hasPendingDataChange() ) {
 				// Wait until we're back in a stable state to try this.
 				final int postOffset = offset;
 				mPositionScrollAfterLayout = new Runnable() {
@@ -4106,7 +4723,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 
 			// Estimate how many screens we should travel
-			final float screenTravelCount = (float) viewTravelCount / childCount;
+			final float screenTravelCount;
+			if ( isItemOffsetIndexReady() && getWidth() > 0 ) {
+				screenTravelCount = (float) Math.abs( getIndexedScrollDistance( mTargetPos, offset ) ) / getWidth();
+			} else {
+				screenTravelCount = (float) viewTravelCount / childCount;
+			}
 			mScrollDuration = screenTravelCount < 1 ?
 					duration : (int) ( duration / screenTravelCount );
 			mLastSeenPos = INVALID_POSITION;
@@ -4319,7 +4941,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					}
 
 					// Estimate how many screens we should travel
-					final float screenTravelCount = (float) viewTravelCount / childCount;
+					final float screenTravelCount;
+					if ( isItemOffsetIndexReady() && getWidth() > 0 ) {
+						screenTravelCount = (float) Math.abs( getIndexedScrollDistance( position, mOffsetFromLeft ) ) / getWidth();
+					} else {
+						screenTravelCount = (float) viewTravelCount / childCount;
+					}
 
 					final float modifier = Math.min( Math.abs( screenTravelCount ), 1.f );
 					if ( position < firstPos ) {
@@ -4474,6 +5101,16 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 	}
 
+	/**
+	 * Scrolls the list items within the view by a specified number of pixels.
+	 *
+	 * @param x
+	 *           the amount of pixels to scroll by horizontally
+	 */
+	public void scrollListBy( int x ) {
+		trackMotionScroll( -x, -x );
+	}
+
 	/**
 	 * Allows RemoteViews to scroll relatively to a position.
 	 */
@@ -4553,6 +5190,23 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 	 * @return true if we're already at the beginning/end of the list and have nothing to do.
 	 */
 	boolean trackMotionScroll( int deltaX, int incrementalDeltaX ) {
+		if ( !mPendingItemRangeOps.isEmpty() ) {
+			// the children still show the old positions, filling the gap would obtain views for the wrong items
+			layoutChildren();
+		}
+
+		final ListFrameMetrics metrics = mFrameMetrics;
+		if ( metrics == null ) {
+			return doTrackMotionScroll( deltaX, incrementalDeltaX );
+		}
+
+		final long start = System.nanoTime();
+		final boolean result = doTrackMotionScroll( deltaX, incrementalDeltaX );
+		metrics.addTiming( ListFrameMetrics.TRACK_MOTION_SCROLL, start );
+		return result;
+	}
+
+	private boolean doTrackMotionScroll( int deltaX, int incrementalDeltaX ) {
 		final int childCount = getChildCount();
 		if ( childCount == 0 ) {
 			return true;
@@ -4689,9 +5343,18 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 		final int absIncrementalDeltaX = Math.abs( incrementalDeltaX );
 		if ( spaceBefore < absIncrementalDeltaX || spaceAfter < absIncrementalDeltaX ) {
-			fillGap( down );
+			if ( mFrameMetrics != null ) {
+				final long fillStart = System.nanoTime();
+				fillGap( down );
+				mFrameMetrics.addTiming( ListFrameMetrics.FILL_GAP, fillStart );
+			} else {
+				fillGap( down );
+			}
 		}
 
+		// the views scrolled out are detached now, those which don't fit in the scrap heap can go to the shared pool
+		mRecycler.trimScrapViews();
+
 		if ( !inTouchMode && mSelectedPosition != INVALID_POSITION ) {
 			final int childIndex = mSelectedPosition - mFirstPosition;
 			if ( childIndex >= 0 && childIndex < getChildCount() ) {
@@ -4922,7 +5585,9 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		mResurrectToPosition = INVALID_POSITION;
-		removeCallbacks( mFlingRunnable );
+		if ( mFlingRunnable != null ) {
+			mViewHelper.removeFrameCallback( mFlingRunnable );
+		}
 		if ( mPositionScroller != null ) {
 			mPositionScroller.stop();
 		}
@@ -4943,56 +5608,120 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		return selectedPos >= 0;
 	}
 
+	/**
+	 * Matches the checked ids with their position after a data set change. The ids still at their last known position are
+	 * verified with a single {@link ListAdapter#getItemId(int)} each; only the ones which moved are looked up with
+	 * {@link #findPositionForItemId(long)}, which indexes the adapter at most once. Ids no longer in the adapter are unchecked.
+	 * 
+	 * @see #setOnCheckedItemsReconciledListener(OnCheckedItemsReconciledListener)
+	 */
 	void confirmCheckedPositionsById() {
 		if( LOG_ENABLED ) {
 			Log.i( TAG, "confirmCheckedPositionsById" );
 		}
-		// Clear out the positional check states, we'll rebuild it below from IDs.
-		mCheckStates.clear();
-
-		boolean checkedCountChanged = false;
-		for ( int checkedIndex = 0; checkedIndex < mCheckedIdStates.size(); checkedIndex++ ) {
-			final long id = mCheckedIdStates.keyAt( checkedIndex );
-			final int lastPos = mCheckedIdStates.valueAt( checkedIndex );
-
-			final long lastPosId = mAdapter.getItemId( lastPos );
-			if ( id != lastPosId ) {
-				// Look around to see if the ID is nearby. If not, uncheck it.
-				final int start = Math.max( 0, lastPos - CHECK_POSITION_SEARCH_DISTANCE );
-				final int end = Math.min( lastPos + CHECK_POSITION_SEARCH_DISTANCE, mItemCount );
-				boolean found = false;
-				for ( int searchPos = start; searchPos < end; searchPos++ ) {
-					final long searchId = mAdapter.getItemId( searchPos );
-					if ( id == searchId ) {
-						found = true;
-						mCheckStates.put( searchPos, true );
-						mCheckedIdStates.setValueAt( checkedIndex, searchPos );
-						break;
-					}
+
+		final LongSparseArray<Integer> idStates = mCheckedIdStates;
+		final int size = idStates.size();
+
+		// First pass: find the ids which are not at their last known position anymore
+		int[] moved = null;
+		int movedCount = 0;
+		for ( int checkedIndex = 0; checkedIndex < size; checkedIndex++ ) {
+			final int lastPos = idStates.valueAt( checkedIndex );
+			if ( lastPos >= mItemCount || mAdapter.getItemId( lastPos ) != idStates.keyAt( checkedIndex ) ) {
+				if ( moved == null ) {
+					moved = new int[size - checkedIndex];
 				}
+				moved[movedCount++] = checkedIndex;
+			}
+		}
 
-				if ( !found ) {
-					mCheckedIdStates.delete( id );
-					checkedIndex--;
-					mCheckedItemCount--;
-					checkedCountChanged = true;
-					
-					if( android.os.Build.VERSION.SDK_INT > 11 ) {
-						if ( mChoiceActionMode != null && mMultiChoiceModeCallback != null ) {
-							((MultiChoiceModeWrapper)mMultiChoiceModeCallback).onItemCheckedStateChanged( (ActionMode) mChoiceActionMode, lastPos, id, false );
-						}
+		if ( movedCount == 0 ) {
+			return;
+		}
+
+		// The old positions of the moved ids are stale, clear them before setting any new one
+		for ( int i = 0; i < movedCount; i++ ) {
+			mCheckedPositions.clear( idStates.valueAt( moved[i] ) );
+		}
+		mCheckStatesDirty = true;
+
+		// Second pass: look up the moved ids. Going backward keeps the indexes valid while removing
+		final boolean notifyDropped = android.os.Build.VERSION.SDK_INT > 11 && mChoiceActionMode != null && mMultiChoiceModeCallback != null;
+		long[] droppedIds = null;
+		int[] droppedPositions = null;
+		int remapped = 0;
+		int dropped = 0;
+		for ( int i = movedCount - 1; i >= 0; i-- ) {
+			final int checkedIndex = moved[i];
+			final long id = idStates.keyAt( checkedIndex );
+			final int lastPos = idStates.valueAt( checkedIndex );
+			final int newPos = findPositionForItemId( id );
+
+			if ( newPos != INVALID_POSITION ) {
+				mCheckedPositions.set( newPos );
+				idStates.setValueAt( checkedIndex, newPos );
+				remapped++;
+			} else {
+				idStates.removeAt( checkedIndex );
+				mCheckedItemCount--;
+
+				if ( notifyDropped ) {
+					// remember it, the callback may end the action mode and clear the choices
+					if ( droppedIds == null ) {
+						droppedIds = new long[i + 1];
+						droppedPositions = new int[i + 1];
 					}
+					droppedIds[dropped] = id;
+					droppedPositions[dropped] = lastPos;
 				}
-			} else {
-				mCheckStates.put( lastPos, true );
+				dropped++;
+			}
+		}
+
+		if ( notifyDropped && dropped > 0 ) {
+			for ( int i = 0; i < dropped && mChoiceActionMode != null; i++ ) {
+				((MultiChoiceModeWrapper)mMultiChoiceModeCallback).onItemCheckedStateChanged( (ActionMode) mChoiceActionMode, droppedPositions[i], droppedIds[i], false );
+			}
+			if ( mChoiceActionMode != null ) {
+				( (ActionMode) mChoiceActionMode ).invalidate();
 			}
 		}
 
-		if ( checkedCountChanged && mChoiceActionMode != null && android.os.Build.VERSION.SDK_INT > 11 ) {
-			( (ActionMode) mChoiceActionMode ).invalidate();
+		if ( mOnCheckedItemsReconciledListener != null ) {
+			mOnCheckedItemsReconciledListener.onCheckedItemsReconciled( this, remapped, dropped );
 		}
 	}
 
+	/**
+	 * Sets the listener notified when checked items move or disappear after a data set change.
+	 * 
+	 * @param listener
+	 *           The listener, or null
+	 */
+	public void setOnCheckedItemsReconciledListener( OnCheckedItemsReconciledListener listener ) {
+		mOnCheckedItemsReconciledListener = listener;
+	}
+
+	/**
+	 * Sets the listener notified with the timings of every frame drawn by this list. Timings are only collected while a
+	 * listener is set, setting a new listener starts new aggregates.
+	 * 
+	 * @param listener
+	 *           The listener, or null to stop collecting timings
+	 */
+	public void setOnFrameMetricsListener( OnFrameMetricsListener listener ) {
+		mOnFrameMetricsListener = listener;
+		mFrameMetrics = listener != null ? new ListFrameMetrics() : null;
+	}
+
+	/**
+	 * @return the timings collected so far, or null if no {@link OnFrameMetricsListener} is set
+	 */
+	public ListFrameMetrics getFrameMetrics() {
+		return mFrameMetrics;
+	}
+
 	@Override
 	protected void handleDataChanged() {
 		if( LOG_ENABLED ) {
@@ -5002,11 +5731,13 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		int lastHandledItemCount = mLastHandledItemCount;
 		mLastHandledItemCount = mItemCount;
 
-		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mAdapter != null && mAdapter.hasStableIds() ) {
+		// Checked ids only need to be matched again if the adapter content changed, not for a new checked state
+		if ( mCheckedIdsNeedConfirm && mChoiceMode != ListView.CHOICE_MODE_NONE && mAdapter != null && mAdapter.hasStableIds() ) {
 			confirmCheckedPositionsById();
 		}
+		mCheckedIdsNeedConfirm = false;
 
-		// TODO: In the future we can recycle these views based on stable ID instead.
+		// Views with transient state are only kept when they can be matched by stable id.
 		mRecycler.clearTransientStateViews();
 
 		if ( count > 0 ) {
@@ -5355,101 +6086,568 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		mRecycler.mRecyclerListener = listener;
 	}
 
-	public class AdapterDataSetObserver extends AdapterView<ListAdapter>.AdapterDataSetObserver {
+	/**
+	 * Sets the listener to be notified whenever a View is evicted from the scrap heap, either because the heap for its view type is
+	 * full or because the heap is cleared. Unlike {@link RecyclerListener#onMovedToScrapHeap(View)} the view will not be reused by
+	 * this list, so any resource it holds can be released right away.
+	 * 
+	 * @param listener
+	 *           The listener to be notified of evicted views.
+	 * @see #setMaxScrapViews(int, int)
+	 */
+	public void setScrapEvictionListener( ScrapEvictionListener listener ) {
+		mRecycler.mScrapEvictionListener = listener;
+	}
 
-		@Override
-		public void onChanged() {
-			if( LOG_ENABLED ) {
-				Log.i( TAG, "AdapterDataSetObserver::onChanged" );
-			}
-			super.onChanged();
-		}
+	/**
+	 * Sets the maximum number of views of the given type kept in the scrap heap. When the heap is full the least recently scrapped
+	 * views are evicted first.<br />
+	 * By default every view type can keep as many scrap views as the number of children the list had in its last layout, and
+	 * no more than {@link RecycledViewPool#DEFAULT_MAX_LOCAL_SCRAP} when a shared pool is set. The limits are enforced once
+	 * the scrapped views have been detached, at the end of every layout and scroll step.
+	 * 
+	 * @param viewType
+	 *           The adapter view type
+	 * @param max
+	 *           Maximum number of scrap views of this type, or -1 to restore the default
+	 * @see #setScrapEvictionListener(ScrapEvictionListener)
+	 */
+	public void setMaxScrapViews( int viewType, int max ) {
+		mRecycler.setMaxScrapViews( viewType, max );
+	}
 
-		@Override
-		public void onInvalidated() {
-			if( LOG_ENABLED ) {
-				Log.i( TAG, "AdapterDataSetObserver::onInvalidated" );
-			}
-			super.onInvalidated();
-		}
+	/**
+	 * Returns the maximum number of views of the given type kept in the scrap heap, or -1 if the default is used.
+	 * 
+	 * @see #setMaxScrapViews(int, int)
+	 */
+	public int getMaxScrapViews( int viewType ) {
+		return mRecycler.mMaxScrap.get( viewType, -1 );
 	}
 
 	/**
-	 * AbsListView extends LayoutParams to provide a place to hold the view type.
+	 * Returns how many times, since the adapter was set or the counters reset, a view was taken from the scrap heap and it was the
+	 * view previously displayed at the same position. Reusing the same view usually makes binding cheaper.
+	 * 
+	 * @see #getScrapMissCount()
+	 * @see #resetScrapCounters()
 	 */
-	public static class LayoutParams extends ViewGroup.LayoutParams {
+	public int getScrapHitCount() {
+		return mRecycler.getScrapHitCount();
+	}
 
-		/**
-		 * View type for this view, as returned by {@link android.widget.Adapter#getItemViewType(int) }
-		 */
-		public int viewType;
+	/**
+	 * Returns how many times, since the adapter was set or the counters reset, a view was requested from the scrap heap and no
+	 * view previously displayed at the same position was available.
+	 * 
+	 * @see #getScrapHitCount()
+	 */
+	public int getScrapMissCount() {
+		return mRecycler.getScrapMissCount();
+	}
 
-		/**
-		 * When this boolean is set, the view has been added to the AbsListView at least once. It is used to know whether
-		 * headers/footers have already been added to the list view and whether they should be treated as recycled views or not.
-		 */
-		public boolean recycledHeaderFooter;
+	/**
+	 * Resets the scrap hit and miss counters.
+	 */
+	public void resetScrapCounters() {
+		mRecycler.resetScrapCounters();
+	}
 
-		/**
-		 * When an AbsListView is measured with an AT_MOST measure spec, it needs to obtain children views to measure itself. When
-		 * doing so, the children are not attached to the window, but put in the recycler which assumes they've been attached before.
-		 * Setting this flag will force the reused view to be attached to the window rather than just attached to the parent.
-		 */
-		public boolean forceAdd;
+	/**
+	 * Returns the recycler counters for every adapter view type: scrap heap sizes, views created and reused by the adapter, views
+	 * evicted or skipped, and views held because of their transient state. The returned object is live, it is updated as the list
+	 * lays out and its counters are cleared when an adapter is set.
+	 * 
+	 * @see #dumpRecycleBin(PrintWriter)
+	 */
+	public RecycleBinStats getRecycleBinStats() {
+		return mRecycler.getStats();
+	}
 
-		/**
-		 * The position the view was removed from when pulled out of the scrap heap.
-		 * 
-		 */
-		public int scrappedFromPosition;
+	/**
+	 * Prints the recycler counters and every view currently held because of its transient state, with its key, class and whether
+	 * it still has transient state. Useful to find views which never leave the transient state holders.
+	 * 
+	 * @see #getRecycleBinStats()
+	 */
+	public void dumpRecycleBin( PrintWriter writer ) {
+		writer.println( getClass().getSimpleName() + " RecycleBin:" );
+		mRecycler.dump( writer );
+		writer.flush();
+	}
 
-		/**
-		 * The ID the view represents
-		 */
-		public long itemId = -1;
+	/**
+	 * Shares a pool of recycled views with other lists. The list keeps at most {@link RecycledViewPool#DEFAULT_MAX_LOCAL_SCRAP}
+	 * views of every type in its own scrap heap, the other scrapped views, including the ones left when the list is detached
+	 * from the window or its adapter changes, are moved to the pool, and the pool is used before creating new views. The pool
+	 * limits are then the bound of the views held by all the lists sharing it.<br />
+	 * All the lists sharing the same pool must use compatible adapter view types.
+	 * 
+	 * @param pool
+	 *           the pool to share, or null to stop using a shared pool
+	 * @see RecycledViewPool
+	 * @see #setRecycledViewPool(RecycledViewPool, int)
+	 */
+	public void setRecycledViewPool( RecycledViewPool pool ) {
+		setRecycledViewPool( pool, RecycledViewPool.DEFAULT_MAX_LOCAL_SCRAP );
+	}
 
-		public LayoutParams( Context c, AttributeSet attrs ) {
-			super( c, attrs );
+	/**
+	 * Shares a pool of recycled views with other lists, keeping at most <var>maxLocalScrap</var> views of every type in the scrap
+	 * heap of this list. Views in excess are moved to the pool right away.
+	 * 
+	 * @param pool
+	 *           the pool to share, or null to stop using a shared pool
+	 * @param maxLocalScrap
+	 *           maximum number of views of every type kept by this list while it uses the pool
+	 * @see #setRecycledViewPool(RecycledViewPool)
+	 */
+	public void setRecycledViewPool( RecycledViewPool pool, int maxLocalScrap ) {
+		if ( maxLocalScrap < 0 ) {
+			throw new IllegalArgumentException( "maxLocalScrap must be >= 0" );
 		}
+		mRecycler.mRecycledViewPool = pool;
+		mRecycler.mMaxLocalScrap = maxLocalScrap;
+		mRecycler.trimScrapViews();
+	}
 
-		public LayoutParams( int w, int h ) {
-			super( w, h );
-		}
+	/**
+	 * @return the shared pool of recycled views used by this list, or null
+	 * @see #setRecycledViewPool(RecycledViewPool)
+	 */
+	public RecycledViewPool getRecycledViewPool() {
+		return mRecycler.mRecycledViewPool;
+	}
 
-		public LayoutParams( int w, int h, int viewType ) {
-			super( w, h );
-			this.viewType = viewType;
+	/**
+	 * Registers the data set observer with the {@link ItemRangeNotifier} adapter too, so that the adapter knows that the item
+	 * range changes reach its only observer and doesn't fall back to full data set changes. Must be called after the data set
+	 * observer has been registered.
+	 */
+	void registerItemRangeObserver() {
+		if ( mItemRangeNotifier != null && mItemRangeObserver == null && mDataSetObserver instanceof ItemRangeObserver ) {
+			mItemRangeObserver = (ItemRangeObserver) mDataSetObserver;
+			mItemRangeNotifier.registerItemRangeObserver( mItemRangeObserver );
 		}
+	}
 
-		public LayoutParams( ViewGroup.LayoutParams source ) {
-			super( source );
+	void unregisterItemRangeObserver() {
+		if ( mItemRangeNotifier != null && mItemRangeObserver != null ) {
+			mItemRangeNotifier.unregisterItemRangeObserver( mItemRangeObserver );
 		}
+		mItemRangeObserver = null;
 	}
 
 	/**
-	 * A RecyclerListener is used to receive a notification whenever a View is placed inside the RecycleBin's scrap heap. This
-	 * listener is used to free resources associated to Views placed in the RecycleBin.
-	 * 
-	 * @see it.sephiroth.android.library.widget.AbsHListView.RecycleBin
-	 * @see it.sephiroth.android.library.widget.AbsHListView#setRecyclerListener(it.sephiroth.android.library.widget.AbsHListView.RecyclerListener)
+	 * Returns the position in the list of the first adapter item, that is the number of header views.
 	 */
-	public static interface RecyclerListener {
-
-		/**
-		 * Indicates that the specified View was moved into the recycler's scrap heap. The view is not displayed on screen any more
-		 * and any expensive resource associated with the view should be discarded.
-		 * 
-		 * @param view
-		 */
-		void onMovedToScrapHeap( View view );
+	int getItemRangeOffset() {
+		return 0;
 	}
 
-	/**
-	 * The RecycleBin facilitates reuse of views across layouts. The RecycleBin has two levels of storage: ActiveViews and
-	 * ScrapViews. ActiveViews are those views which were onscreen at the start of a layout. By construction, they are displaying
-	 * current information. At the end of layout, all views in ActiveViews are demoted to ScrapViews. ScrapViews are old views that
-	 * could potentially be used by the adapter to avoid allocating views unnecessarily.
-	 * 
+	private void onItemRangeOp( int op, int arg1, int arg2, Object payload ) {
+		if( LOG_ENABLED ) {
+			Log.i( TAG, "onItemRangeOp: " + op + ", " + arg1 + ", " + arg2 );
+		}
+
+		if ( mAdapter == null || mDataSetObserver == null ) {
+			return;
+		}
+
+		if ( mDataChanged || mPendingItemRangeOps.isFull() ) {
+			// already waiting for a full refresh, or too many changes to track them one by one
+			mDataSetObserver.onChanged();
+			return;
+		}
+
+		if ( ( op == ItemRangeOpQueue.OP_MOVE && arg1 == arg2 ) || ( op != ItemRangeOpQueue.OP_MOVE && arg2 <= 0 ) ) {
+			return;
+		}
+
+		mPendingItemRangeOps.add( op, arg1, arg2, payload );
+		mOldItemCount = mItemCount;
+		mItemCount = mAdapter.getCount();
+		mItemIdIndex.invalidate();
+
+		// cached measures and views are keyed by the old positions
+		if ( mItemWidthCache != null ) {
+			if ( op == ItemRangeOpQueue.OP_CHANGE ) {
+				for ( int i = arg1; i < arg1 + arg2; i++ ) {
+					mItemWidthCache.remove( i, getItemIdForWidthCache( i ) );
+				}
+			} else {
+				mItemWidthCache.onItemsMoved();
+			}
+		}
+		if ( mItemOffsetIndex != null ) {
+			mItemOffsetIndex.clear();
+		}
+		mRecycler.clearPrefetchedViews();
+
+		checkFocus();
+		requestLayout();
+	}
+
+	/**
+	 * @return true if the adapter changed since the last layout, either as a whole or by item range changes which are not applied
+	 *         to the children yet. The positions of the children are stale until the next layout.
+	 */
+	boolean hasPendingDataChange() {
+		return mDataChanged || !mPendingItemRangeOps.isEmpty();
+	}
+
+	/**
+	 * Applies the pending item range changes to the selection, the check states and the children, at the beginning of a layout.
+	 * The children keep their views, only the changed ones are bound again (or updated with the change payloads, if the adapter is
+	 * a {@link PayloadBindingAdapter}) and the removed ones are scrapped, then the layout
+	 * starts again from the first child which is still in the adapter.<br />
+	 * If the list is not in a normal layout mode the changes are handled as a whole data set change.
+	 */
+	void applyPendingItemRangeOps() {
+		final ItemRangeOpQueue ops = mPendingItemRangeOps;
+		if ( ops.isEmpty() ) {
+			return;
+		}
+
+		if ( mDataChanged || mLayoutMode != LAYOUT_NORMAL ) {
+			// the layout modes other than the normal one rely on positions matching the current children
+			ops.clear();
+			mCheckedIdsNeedConfirm = true;
+			if ( !mDataChanged ) {
+				mDataChanged = true;
+				rememberSyncState();
+			}
+			return;
+		}
+
+		// check states
+		if ( mCheckedPositions != null && !mCheckedPositions.isEmpty() ) {
+			final IntBitSet states = mCheckedPositions.clone();
+			mCheckedPositions.clear();
+			for ( int i = states.nextSetBit( 0 ); i >= 0; i = states.nextSetBit( i + 1 ) ) {
+				final int position = ops.transform( i, null );
+				if ( position != ItemRangeOpQueue.REMOVED ) {
+					mCheckedPositions.set( position );
+				}
+			}
+			mCheckedItemCount = mCheckedPositions.cardinality();
+			mCheckStatesDirty = true;
+		}
+
+		if ( mCheckedIdStates != null ) {
+			for ( int i = mCheckedIdStates.size() - 1; i >= 0; i-- ) {
+				final int position = ops.transform( mCheckedIdStates.valueAt( i ), null );
+				if ( position != ItemRangeOpQueue.REMOVED ) {
+					mCheckedIdStates.setValueAt( i, position );
+				} else {
+					mCheckedIdStates.removeAt( i );
+				}
+			}
+		}
+
+		// selection
+		if ( mSelectedPosition >= 0 ) {
+			final int position = ops.transform( mSelectedPosition, null );
+			setSelectedPositionInt( position != ItemRangeOpQueue.REMOVED ? position : INVALID_POSITION );
+		}
+		if ( mNextSelectedPosition >= 0 ) {
+			final int position = ops.transform( mNextSelectedPosition, null );
+			setNextSelectedPositionInt( position != ItemRangeOpQueue.REMOVED ? position : INVALID_POSITION );
+		}
+
+		mRecycler.remapTransientStateViews( ops );
+
+		// children
+		final int childCount = getChildCount();
+		if ( childCount > 0 ) {
+			if ( mRemappedChildPositions.length < childCount ) {
+				mRemappedChildPositions = new int[childCount];
+				mRemappedChildChanged = new boolean[childCount];
+			}
+
+			final boolean[] changed = new boolean[1];
+			final ArrayList<Object> payloads = mPayloadsBuffer;
+			final int firstPosition = mFirstPosition;
+			int anchor = INVALID_POSITION;
+
+			for ( int i = 0; i < childCount; i++ ) {
+				payloads.clear();
+				final int position = ops.transform( firstPosition + i, changed, payloads );
+				mRemappedChildPositions[i] = position;
+				mRemappedChildChanged[i] = changed[0];
+				if ( anchor == INVALID_POSITION && position != ItemRangeOpQueue.REMOVED ) {
+					anchor = position;
+				}
+
+				if ( changed[0] && position != ItemRangeOpQueue.REMOVED && mPayloadBindingAdapter != null
+						&& !payloads.contains( null ) ) {
+					// the child stays where it is and will only be updated with the payloads
+					final ViewGroup.LayoutParams lp = getChildAt( i ).getLayoutParams();
+					if ( lp instanceof LayoutParams ) {
+						( (LayoutParams) lp ).payloads = new ArrayList<Object>( payloads );
+						mRemappedChildChanged[i] = false;
+					}
+				}
+			}
+			payloads.clear();
+
+			mRemappedChildCount = childCount;
+			mRemappedFirstPosition = firstPosition;
+
+			// keep the first item which is still there where the first child was
+			if ( anchor == INVALID_POSITION ) {
+				anchor = firstPosition;
+			}
+			mSyncPosition = Math.max( 0, Math.min( anchor, mItemCount - 1 ) );
+			mSpecificLeft = getChildAt( 0 ).getLeft();
+			mLayoutMode = LAYOUT_SYNC;
+		}
+
+		ops.clear();
+	}
+
+	/**
+	 * Hands the payloads of the item changes received since the last layout to the {@link PayloadBindingAdapter}, for a child
+	 * which is kept on screen. If the adapter reports that the size of the child may have changed the child is marked to be
+	 * measured again, otherwise {@link LayoutParams#sizeUnchanged} is set.
+	 * 
+	 * @param child
+	 *           an active view being laid out again
+	 * @param position
+	 *           the position of the child
+	 */
+	void bindPendingPayloads( View child, int position ) {
+		final ViewGroup.LayoutParams vlp = child.getLayoutParams();
+		if ( !( vlp instanceof LayoutParams ) ) {
+			return;
+		}
+
+		final LayoutParams lp = (LayoutParams) vlp;
+		final List<Object> payloads = lp.payloads;
+		if ( payloads == null ) {
+			return;
+		}
+		lp.payloads = null;
+
+		if ( mPayloadBindingAdapter == null ) {
+			return;
+		}
+
+		if ( mPayloadBindingAdapter.bindView( position - getItemRangeOffset(), child, this, payloads ) ) {
+			lp.sizeUnchanged = true;
+		} else {
+			child.forceLayout();
+		}
+	}
+
+	/**
+	 * Also receives the item range changes of an {@link ItemRangeNotifier} adapter
+	 */
+	public class AdapterDataSetObserver extends AdapterView<ListAdapter>.AdapterDataSetObserver implements ItemRangeObserver {
+
+		@Override
+		public void onChanged() {
+			if( LOG_ENABLED ) {
+				Log.i( TAG, "AdapterDataSetObserver::onChanged" );
+			}
+			if ( mItemWidthCache != null ) {
+				mItemWidthCache.clear();
+			}
+			if ( mItemOffsetIndex != null ) {
+				mItemOffsetIndex.clear();
+			}
+			mRecycler.clearPrefetchedViews();
+			mPendingItemRangeOps.clear();
+			mCheckedIdsNeedConfirm = true;
+			super.onChanged();
+		}
+
+		@Override
+		public void onInvalidated() {
+			if( LOG_ENABLED ) {
+				Log.i( TAG, "AdapterDataSetObserver::onInvalidated" );
+			}
+			if ( mItemWidthCache != null ) {
+				mItemWidthCache.clear();
+			}
+			if ( mItemOffsetIndex != null ) {
+				mItemOffsetIndex.clear();
+			}
+			mRecycler.clearPrefetchedViews();
+			mPendingItemRangeOps.clear();
+			mCheckedIdsNeedConfirm = true;
+			super.onInvalidated();
+		}
+
+		@Override
+		public void onItemRangeChanged( int positionStart, int itemCount, Object payload ) {
+			final int offset = getItemRangeOffset();
+			onItemRangeOp( ItemRangeOpQueue.OP_CHANGE, positionStart + offset, itemCount, payload );
+		}
+
+		@Override
+		public void onItemRangeInserted( int positionStart, int itemCount ) {
+			final int offset = getItemRangeOffset();
+			onItemRangeOp( ItemRangeOpQueue.OP_INSERT, positionStart + offset, itemCount, null );
+		}
+
+		@Override
+		public void onItemRangeRemoved( int positionStart, int itemCount ) {
+			final int offset = getItemRangeOffset();
+			onItemRangeOp( ItemRangeOpQueue.OP_REMOVE, positionStart + offset, itemCount, null );
+		}
+
+		@Override
+		public void onItemMoved( int fromPosition, int toPosition ) {
+			final int offset = getItemRangeOffset();
+			onItemRangeOp( ItemRangeOpQueue.OP_MOVE, fromPosition + offset, toPosition + offset, null );
+		}
+	}
+
+	/**
+	 * AbsListView extends LayoutParams to provide a place to hold the view type.
+	 */
+	public static class LayoutParams extends ViewGroup.LayoutParams {
+
+		/**
+		 * View type for this view, as returned by {@link android.widget.Adapter#getItemViewType(int) }
+		 */
+		public int viewType;
+
+		/**
+		 * When this boolean is set, the view has been added to the AbsListView at least once. It is used to know whether
+		 * headers/footers have already been added to the list view and whether they should be treated as recycled views or not.
+		 */
+		public boolean recycledHeaderFooter;
+
+		/**
+		 * When an AbsListView is measured with an AT_MOST measure spec, it needs to obtain children views to measure itself. When
+		 * doing so, the children are not attached to the window, but put in the recycler which assumes they've been attached before.
+		 * Setting this flag will force the reused view to be attached to the window rather than just attached to the parent.
+		 */
+		public boolean forceAdd;
+
+		/**
+		 * The position the view was removed from when pulled out of the scrap heap.
+		 * 
+		 */
+		public int scrappedFromPosition;
+
+		/**
+		 * The ID the view represents
+		 */
+		public long itemId = -1;
+
+		/**
+		 * Payloads of the changes of the item waiting to be handed to the {@link PayloadBindingAdapter}
+		 */
+		List<Object> payloads;
+
+		/**
+		 * The view has just been updated with some payloads which did not change its size, the next layout doesn't need to
+		 * measure it
+		 */
+		boolean sizeUnchanged;
+
+		public LayoutParams( Context c, AttributeSet attrs ) {
+			super( c, attrs );
+		}
+
+		public LayoutParams( int w, int h ) {
+			super( w, h );
+		}
+
+		public LayoutParams( int w, int h, int viewType ) {
+			super( w, h );
+			this.viewType = viewType;
+		}
+
+		public LayoutParams( ViewGroup.LayoutParams source ) {
+			super( source );
+		}
+	}
+
+	/**
+	 * A RecyclerListener is used to receive a notification whenever a View is placed inside the RecycleBin's scrap heap. This
+	 * listener is used to free resources associated to Views placed in the RecycleBin.
+	 * 
+	 * @see it.sephiroth.android.library.widget.AbsHListView.RecycleBin
+	 * @see it.sephiroth.android.library.widget.AbsHListView#setRecyclerListener(it.sephiroth.android.library.widget.AbsHListView.RecyclerListener)
+	 */
+	public static interface RecyclerListener {
+
+		/**
+		 * Indicates that the specified View was moved into the recycler's scrap heap. The view is not displayed on screen any more
+		 * and any expensive resource associated with the view should be discarded.
+		 * 
+		 * @param view
+		 */
+		void onMovedToScrapHeap( View view );
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked after every frame drawn by the list, with the time spent scrolling,
+	 * binding, laying out and drawing the items.
+	 * 
+	 * @see it.sephiroth.android.library.widget.AbsHListView#setOnFrameMetricsListener(OnFrameMetricsListener)
+	 */
+	public static interface OnFrameMetricsListener {
+
+		/**
+		 * Called after every frame drawn by the list, <var>metrics</var> is only valid during the call.
+		 * 
+		 * @param view
+		 *           The list
+		 * @param metrics
+		 *           timings and counts of the frame, and the aggregates so far
+		 */
+		void onFrameMetrics( AbsHListView view, ListFrameMetrics metrics );
+	}
+
+	/**
+	 * Interface definition for a callback to be invoked when the checked items of a list with stable ids have been matched with
+	 * their new positions after a data set change.
+	 * 
+	 * @see it.sephiroth.android.library.widget.AbsHListView#setOnCheckedItemsReconciledListener(OnCheckedItemsReconciledListener)
+	 */
+	public static interface OnCheckedItemsReconciledListener {
+
+		/**
+		 * Called only if some checked items moved or have been removed from the adapter.
+		 * 
+		 * @param view
+		 *           The list
+		 * @param remapped
+		 *           number of checked items found at a new position
+		 * @param dropped
+		 *           number of checked items no longer in the adapter, which have been unchecked
+		 */
+		void onCheckedItemsReconciled( AbsHListView view, int remapped, int dropped );
+	}
+
+	/**
+	 * A ScrapEvictionListener is notified whenever a View leaves the RecycleBin's scrap heap for good.
+	 * 
+	 * @see it.sephiroth.android.library.widget.AbsHListView#setScrapEvictionListener(ScrapEvictionListener)
+	 * @see it.sephiroth.android.library.widget.AbsHListView#setMaxScrapViews(int, int)
+	 */
+	public static interface ScrapEvictionListener {
+
+		/**
+		 * Indicates that the specified View has been evicted from the scrap heap and removed from the list. The view may still be
+		 * reused by a shared {@link RecycledViewPool}, but it will be bound again by the adapter first.
+		 * 
+		 * @param view
+		 */
+		void onEvictedFromScrapHeap( View view );
+	}
+
+	/**
+	 * The RecycleBin facilitates reuse of views across layouts. The RecycleBin has two levels of storage: ActiveViews and
+	 * ScrapViews. ActiveViews are those views which were onscreen at the start of a layout. By construction, they are displaying
+	 * current information. At the end of layout, all views in ActiveViews are demoted to ScrapViews. ScrapViews are old views that
+	 * could potentially be used by the adapter to avoid allocating views unnecessarily.
+	 * 
 	 * @see it.sephiroth.android.library.widget.AbsHListView#setRecyclerListener(it.sephiroth.android.library.widget.AbsHListView.RecyclerListener)
 	 * @see it.sephiroth.android.library.widget.AbsHListView.RecyclerListener
 	 */
@@ -5457,6 +6655,24 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 		private RecyclerListener mRecyclerListener;
 
+		/**
+		 * Optional pool shared with other lists, receives the views which don't fit in the scrap heap
+		 */
+		private RecycledViewPool mRecycledViewPool;
+
+		/**
+		 * Maximum scrap views per view type while a shared pool is set
+		 */
+		private int mMaxLocalScrap = RecycledViewPool.DEFAULT_MAX_LOCAL_SCRAP;
+
+		private ScrapEvictionListener mScrapEvictionListener;
+
+		/**
+		 * Maximum scrap views per view type, types which are not in here are capped at the size of mActiveViews. With a shared
+		 * pool no type keeps more than mMaxLocalScrap views.
+		 */
+		private final SparseIntArray mMaxScrap = new SparseIntArray();
+
 		/**
 		 * The position of the first view stored in mActiveViews.
 		 */
@@ -5472,45 +6688,71 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		/**
 		 * Unsorted views that can be used by the adapter as a convert view.
 		 */
-		private ArrayList<View>[] mScrapViews;
+		private ScrapPile[] mScrapViews;
 
 		private int mViewTypeCount;
 
-		private ArrayList<View> mCurrentScrap;
+		private ScrapPile mCurrentScrap;
 
 		private ArrayList<View> mSkippedScrap;
 
 		private SparseArrayCompat<View> mTransientStateViews;
 
-		@SuppressWarnings("unchecked")
+		/**
+		 * Views with transient state keyed by item id, used in place of mTransientStateViews when the adapter has stable ids so
+		 * that they survive data set changes.
+		 */
+		private LongSparseArray<View> mTransientStateViewsById;
+
+		/**
+		 * Views which were on screen when the data set changed, keyed by item id. Only used when the adapter has stable ids, they
+		 * are given back to the adapter for the item with the same id.
+		 */
+		private LongSparseArray<View> mActiveViewsById;
+
+		/**
+		 * Active views keyed by their position after the pending item range changes have been applied
+		 */
+		private SparseArrayCompat<View> mRemappedActiveViews;
+
+		/**
+		 * Views obtained, bound and measured ahead of time, keyed by position. They are not attached to the list.
+		 */
+		private SparseArrayCompat<View> mPrefetchedViews;
+
+		private final RecycleBinStats mStats = new RecycleBinStats();
+
+		/**
+		 * View type of the position passed to the last {@link #getScrapView(int)} call
+		 */
+		private int mLastScrapViewType;
+
 		public void setViewTypeCount( int viewTypeCount ) {
 			if ( viewTypeCount < 1 ) {
 				throw new IllegalArgumentException( "Can't have a viewTypeCount < 1" );
 			}
-			// noinspection unchecked
-			ArrayList<View>[] scrapViews = new ArrayList[viewTypeCount];
+			ScrapPile[] scrapViews = new ScrapPile[viewTypeCount];
 			for ( int i = 0; i < viewTypeCount; i++ ) {
-				scrapViews[i] = new ArrayList<View>();
+				scrapViews[i] = new ScrapPile();
 			}
 			mViewTypeCount = viewTypeCount;
 			mCurrentScrap = scrapViews[0];
 			mScrapViews = scrapViews;
+			mStats.setViewTypeCount( viewTypeCount );
 		}
 
 		public void markChildrenDirty() {
 			if ( mViewTypeCount == 1 ) {
-				final ArrayList<View> scrap = mCurrentScrap;
-				final int scrapCount = scrap.size();
-				for ( int i = 0; i < scrapCount; i++ ) {
-					scrap.get( i ).forceLayout();
+				final ScrapPile scrap = mCurrentScrap;
+				for ( int slot = scrap.oldestSlot(); slot != ScrapPile.NO_SLOT; slot = scrap.nextSlot( slot ) ) {
+					scrap.viewAt( slot ).forceLayout();
 				}
 			} else {
 				final int typeCount = mViewTypeCount;
 				for ( int i = 0; i < typeCount; i++ ) {
-					final ArrayList<View> scrap = mScrapViews[i];
-					final int scrapCount = scrap.size();
-					for ( int j = 0; j < scrapCount; j++ ) {
-						scrap.get( j ).forceLayout();
+					final ScrapPile scrap = mScrapViews[i];
+					for ( int slot = scrap.oldestSlot(); slot != ScrapPile.NO_SLOT; slot = scrap.nextSlot( slot ) ) {
+						scrap.viewAt( slot ).forceLayout();
 					}
 				}
 			}
@@ -5520,6 +6762,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					mTransientStateViews.valueAt( i ).forceLayout();
 				}
 			}
+			if ( mTransientStateViewsById != null ) {
+				final int count = mTransientStateViewsById.size();
+				for ( int i = 0; i < count; i++ ) {
+					mTransientStateViewsById.valueAt( i ).forceLayout();
+				}
+			}
 		}
 
 		public boolean shouldRecycleViewType( int viewType ) {
@@ -5531,24 +6779,41 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		 */
 		public void clear() {
 			if ( mViewTypeCount == 1 ) {
-				final ArrayList<View> scrap = mCurrentScrap;
-				final int scrapCount = scrap.size();
-				for ( int i = 0; i < scrapCount; i++ ) {
-					removeDetachedView( scrap.remove( scrapCount - 1 - i ), false );
+				final ScrapPile scrap = mCurrentScrap;
+				while ( !scrap.isEmpty() ) {
+					releaseScrapView( scrap.removeNewest() );
 				}
 			} else {
 				final int typeCount = mViewTypeCount;
 				for ( int i = 0; i < typeCount; i++ ) {
-					final ArrayList<View> scrap = mScrapViews[i];
-					final int scrapCount = scrap.size();
-					for ( int j = 0; j < scrapCount; j++ ) {
-						removeDetachedView( scrap.remove( scrapCount - 1 - j ), false );
+					final ScrapPile scrap = mScrapViews[i];
+					while ( !scrap.isEmpty() ) {
+						releaseScrapView( scrap.removeNewest() );
 					}
 				}
 			}
 			if ( mTransientStateViews != null ) {
+				for ( int i = mTransientStateViews.size() - 1; i >= 0; i-- ) {
+					mStats.increment( getViewType( mTransientStateViews.valueAt( i ) ), RecycleBinStats.TRANSIENT_DROPPED );
+				}
 				mTransientStateViews.clear();
 			}
+			if ( mTransientStateViewsById != null ) {
+				for ( int i = mTransientStateViewsById.size() - 1; i >= 0; i-- ) {
+					mStats.increment( getViewType( mTransientStateViewsById.valueAt( i ) ), RecycleBinStats.TRANSIENT_DROPPED );
+				}
+				mTransientStateViewsById.clear();
+			}
+			if ( mActiveViewsById != null ) {
+				mActiveViewsById.clear();
+			}
+			if ( mRemappedActiveViews != null ) {
+				mRemappedActiveViews.clear();
+			}
+			mRemappedChildCount = -1;
+			if ( mPrefetchedViews != null ) {
+				mPrefetchedViews.clear();
+			}
 		}
 
 		/**
@@ -5560,6 +6825,11 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		 *           The position of the first view that will be stored in mActiveViews
 		 */
 		public void fillActiveViews( int childCount, int firstActivePosition ) {
+			if ( mRemappedChildCount >= 0 ) {
+				fillRemappedActiveViews();
+				return;
+			}
+
 			if ( mActiveViews.length < childCount ) {
 				mActiveViews = new View[childCount];
 			}
@@ -5586,6 +6856,16 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		 * @return The view if it is found, null otherwise
 		 */
 		public View getActiveView( int position ) {
+			if ( mRemappedActiveViews != null && mRemappedActiveViews.size() > 0 ) {
+				final int index = mRemappedActiveViews.indexOfKey( position );
+				if ( index < 0 ) {
+					return null;
+				}
+				final View match = mRemappedActiveViews.valueAt( index );
+				mRemappedActiveViews.removeAt( index );
+				return match;
+			}
+
 			int index = position - mFirstActivePosition;
 			final View[] activeViews = mActiveViews;
 			if ( index >= 0 && index < activeViews.length ) {
@@ -5597,6 +6877,14 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		}
 
 		View getTransientStateView( int position ) {
+			if ( mAdapterHasStableIds && mTransientStateViewsById != null && mTransientStateViewsById.size() > 0 ) {
+				final long id = mAdapter.getItemId( position );
+				final View result = mTransientStateViewsById.get( id );
+				if ( result != null ) {
+					mTransientStateViewsById.remove( id );
+					return result;
+				}
+			}
 			if ( mTransientStateViews == null ) {
 				return null;
 			}
@@ -5609,28 +6897,380 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			return result;
 		}
 
+		void addPrefetchedView( int position, View view ) {
+			if ( mPrefetchedViews == null ) {
+				mPrefetchedViews = new SparseArrayCompat<View>();
+			}
+			mPrefetchedViews.put( position, view );
+		}
+
+		boolean hasPrefetchedView( int position ) {
+			return mPrefetchedViews != null && mPrefetchedViews.indexOfKey( position ) >= 0;
+		}
+
+		/**
+		 * Get the prefetched view for the specified position. The view is removed from the prefetched views if it is found.
+		 */
+		View getPrefetchedView( int position ) {
+			if ( mPrefetchedViews == null ) {
+				return null;
+			}
+			final int index = mPrefetchedViews.indexOfKey( position );
+			if ( index < 0 ) {
+				return null;
+			}
+			final View result = mPrefetchedViews.valueAt( index );
+			mPrefetchedViews.removeAt( index );
+			return result;
+		}
+
+		/**
+		 * Move the prefetched views outside the given range of positions to the scrap heap.
+		 */
+		void trimPrefetchedViews( int firstPosition, int lastPosition ) {
+			if ( mPrefetchedViews == null ) {
+				return;
+			}
+			for ( int i = mPrefetchedViews.size() - 1; i >= 0; i-- ) {
+				final int position = mPrefetchedViews.keyAt( i );
+				if ( position < firstPosition || position > lastPosition ) {
+					final View view = mPrefetchedViews.valueAt( i );
+					mPrefetchedViews.removeAt( i );
+					addScrapView( view, position );
+				}
+			}
+		}
+
+		/**
+		 * Move all the prefetched views to the scrap heap, they are no longer valid.
+		 */
+		void clearPrefetchedViews() {
+			if ( mPrefetchedViews == null ) {
+				return;
+			}
+			final int count = mPrefetchedViews.size();
+			for ( int i = 0; i < count; i++ ) {
+				addScrapView( mPrefetchedViews.valueAt( i ), mPrefetchedViews.keyAt( i ) );
+			}
+			mPrefetchedViews.clear();
+		}
+
+		/**
+		 * Fills the active views with the children which survived the pending item range changes, keyed by their new position.
+		 * Children of removed items are scrapped, children of changed items are scrapped with their new position so that the
+		 * adapter gets the same view back when binding them again.
+		 */
+		private void fillRemappedActiveViews() {
+			final int childCount = mRemappedChildCount;
+			mRemappedChildCount = -1;
+
+			if ( mRemappedActiveViews == null ) {
+				mRemappedActiveViews = new SparseArrayCompat<View>( childCount );
+			}
+
+			for ( int i = 0; i < childCount; i++ ) {
+				final View child = getChildAt( i );
+				final AbsHListView.LayoutParams lp = (AbsHListView.LayoutParams) child.getLayoutParams();
+				// Don't put header or footer views into the scrap heap
+				if ( lp == null || lp.viewType == ITEM_VIEW_TYPE_HEADER_OR_FOOTER ) {
+					continue;
+				}
+
+				final int position = mRemappedChildPositions[i];
+				if ( position == ItemRangeOpQueue.REMOVED ) {
+					addScrapView( child, mRemappedFirstPosition + i );
+				} else if ( mRemappedChildChanged[i] ) {
+					addScrapView( child, position );
+				} else {
+					mRemappedActiveViews.put( position, child );
+				}
+			}
+		}
+
+		/**
+		 * Moves the views with transient state to their position after the pending item range changes, or drops them if their item
+		 * has been removed.
+		 */
+		void remapTransientStateViews( ItemRangeOpQueue ops ) {
+			if ( mTransientStateViews == null || mTransientStateViews.size() == 0 ) {
+				return;
+			}
+			final SparseArrayCompat<View> views = mTransientStateViews.clone();
+			mTransientStateViews.clear();
+			for ( int i = 0; i < views.size(); i++ ) {
+				final int position = ops.transform( views.keyAt( i ), null );
+				if ( position != ItemRangeOpQueue.REMOVED ) {
+					mTransientStateViews.put( position, views.valueAt( i ) );
+				}
+			}
+		}
+
+		/**
+		 * Like {@link #fillActiveViews(int, int)}, but to be used when the data set changed and the adapter has stable ids: the
+		 * children are stored by item id, so that the same view can be given back to the adapter for the same item whatever its new
+		 * position. Children with transient state, and the ones which should not be recycled, go through
+		 * {@link #addScrapView(View, int)}.
+		 * 
+		 * @param childCount
+		 *           The number of children
+		 * @param firstActivePosition
+		 *           The position of the first child before the data set changed
+		 */
+		@SuppressLint ( "NewApi" )
+		void fillActiveViewsById( int childCount, int firstActivePosition ) {
+			if ( mActiveViewsById == null ) {
+				mActiveViewsById = new LongSparseArray<View>();
+			}
+
+			for ( int i = 0; i < childCount; i++ ) {
+				final View child = getChildAt( i );
+				final AbsHListView.LayoutParams lp = (AbsHListView.LayoutParams) child.getLayoutParams();
+				final boolean hasTransientState = android.os.Build.VERSION.SDK_INT >= 16 ? child.hasTransientState() : false;
+
+				if ( lp == null || !shouldRecycleViewType( lp.viewType ) || hasTransientState
+						|| mActiveViewsById.get( lp.itemId ) != null ) {
+					addScrapView( child, firstActivePosition + i );
+					continue;
+				}
+
+				lp.scrappedFromPosition = firstActivePosition + i;
+				child.onStartTemporaryDetach();
+				mActiveViewsById.put( lp.itemId, child );
+			}
+		}
+
+		/**
+		 * Returns the view which was displaying the item at the given position before the data set changed, if the adapter has
+		 * stable ids and the item was on screen. The view is removed from the active views.
+		 */
+		View getActiveViewById( int position ) {
+			if ( mActiveViewsById == null || mActiveViewsById.size() == 0 || !mAdapterHasStableIds ) {
+				return null;
+			}
+
+			final long id = mAdapter.getItemId( position );
+			final View view = mActiveViewsById.get( id );
+			if ( view == null ) {
+				return null;
+			}
+			mActiveViewsById.remove( id );
+
+			final AbsHListView.LayoutParams lp = (AbsHListView.LayoutParams) view.getLayoutParams();
+			if ( lp.viewType != mAdapter.getItemViewType( position ) ) {
+				// same item, different kind of view: can only be reused by an item of its old type
+				addScrapView( view, lp.scrappedFromPosition );
+				return null;
+			}
+			return view;
+		}
+
 		/**
-		 * Dump any currently saved views with transient state.
+		 * Dump any currently saved views with transient state. Views keyed by stable id are kept, they can still be matched with
+		 * their item after a data set change.
 		 */
 		void clearTransientStateViews() {
 			if ( mTransientStateViews != null ) {
+				for ( int i = mTransientStateViews.size() - 1; i >= 0; i-- ) {
+					mStats.increment( getViewType( mTransientStateViews.valueAt( i ) ), RecycleBinStats.TRANSIENT_DROPPED );
+				}
 				mTransientStateViews.clear();
 			}
 		}
 
 		/**
-		 * @return A view from the ScrapViews collection. These are unordered.
+		 * @return A view from the ScrapViews collection, preferably the one previously used for the same position.
 		 */
 		View getScrapView( int position ) {
+			View scrap = null;
 			if ( mViewTypeCount == 1 ) {
-				return retrieveFromScrap( mCurrentScrap, position );
+				mLastScrapViewType = 0;
+				scrap = mCurrentScrap.retrieve( position );
 			} else {
 				int whichScrap = mAdapter.getItemViewType( position );
+				mLastScrapViewType = whichScrap;
 				if ( whichScrap >= 0 && whichScrap < mScrapViews.length ) {
-					return retrieveFromScrap( mScrapViews[whichScrap], position );
+					scrap = mScrapViews[whichScrap].retrieve( position );
+				}
+			}
+
+			if ( scrap == null && mRecycledViewPool != null ) {
+				final int viewType = mAdapter.getItemViewType( position );
+				if ( shouldRecycleViewType( viewType ) ) {
+					scrap = mRecycledViewPool.getRecycledView( viewType );
+					if ( scrap != null ) {
+						// pooled views are not attached to this list, they need to be added
+						final ViewGroup.LayoutParams vlp = scrap.getLayoutParams();
+						if ( vlp instanceof AbsHListView.LayoutParams ) {
+							( (AbsHListView.LayoutParams) vlp ).forceAdd = true;
+						}
+					}
+				}
+			}
+			return scrap;
+		}
+
+		void setMaxScrapViews( int viewType, int max ) {
+			if ( max < 0 ) {
+				mMaxScrap.delete( viewType );
+				return;
+			}
+
+			mMaxScrap.put( viewType, max );
+			if ( mScrapViews != null && viewType >= 0 && viewType < mViewTypeCount ) {
+				evictScrapViews( viewType, mScrapViews[viewType], getMaxScrapViews( viewType ) );
+			}
+		}
+
+		private int getMaxScrapViews( int viewType ) {
+			final int max = mMaxScrap.get( viewType, mActiveViews.length );
+			return mRecycledViewPool != null ? Math.min( max, mMaxLocalScrap ) : max;
+		}
+
+		/**
+		 * Evicts the scrap views in excess of the limit of every view type, moving them to the shared pool if any. Must only be
+		 * called once the scrapped views have been detached.
+		 */
+		void trimScrapViews() {
+			if ( mScrapViews == null ) {
+				return;
+			}
+			final int viewTypeCount = mViewTypeCount;
+			final ScrapPile[] scrapViews = mScrapViews;
+			for ( int i = 0; i < viewTypeCount; ++i ) {
+				evictScrapViews( i, scrapViews[i], getMaxScrapViews( i ) );
+			}
+		}
+
+		/**
+		 * Evicts the least recently scrapped views from the pile until it holds no more than <var>max</var> views.
+		 */
+		private void evictScrapViews( int viewType, ScrapPile scrapPile, int max ) {
+			while ( scrapPile.size() > max ) {
+				releaseScrapView( scrapPile.removeOldest() );
+				mStats.increment( viewType, RecycleBinStats.EVICTED );
+			}
+		}
+
+		/**
+		 * @return how many times a scrap view previously used for the same position was reused
+		 */
+		int getScrapHitCount() {
+			int count = 0;
+			for ( int i = 0; i < mViewTypeCount; i++ ) {
+				count += mScrapViews[i].getHitCount();
+			}
+			return count;
+		}
+
+		/**
+		 * @return how many times a scrap view was requested and none previously used for the same position was available
+		 */
+		int getScrapMissCount() {
+			int count = 0;
+			for ( int i = 0; i < mViewTypeCount; i++ ) {
+				count += mScrapViews[i].getMissCount();
+			}
+			return count;
+		}
+
+		void resetScrapCounters() {
+			for ( int i = 0; i < mViewTypeCount; i++ ) {
+				mScrapViews[i].resetCounters();
+			}
+		}
+
+		/**
+		 * Counts a view returned by the adapter, either created or recycled from its convert view. The view type is the one of
+		 * the convert view, which is always of the same type as the item, or the one looked up by the last
+		 * {@link #getScrapView(int)} call when there was no convert view, so the adapter isn't asked again.
+		 * 
+		 * @param convertView
+		 *           The view given to the adapter, or null
+		 */
+		void countObtainedView( View convertView, boolean reused ) {
+			final int viewType;
+			if ( mViewTypeCount == 1 ) {
+				viewType = 0;
+			} else if ( convertView != null ) {
+				viewType = getViewType( convertView );
+			} else {
+				viewType = mLastScrapViewType;
+			}
+			mStats.increment( viewType, reused ? RecycleBinStats.REUSED : RecycleBinStats.CREATED );
+		}
+
+		/**
+		 * @return the recycler counters, with the current scrap heap sizes
+		 */
+		RecycleBinStats getStats() {
+			for ( int i = 0; i < mViewTypeCount; i++ ) {
+				mStats.set( i, RecycleBinStats.SCRAP_SIZE, mScrapViews[i].size() );
+			}
+			return mStats;
+		}
+
+		private void onScrapped( int viewType, ScrapPile scrapPile ) {
+			if ( scrapPile.size() > mStats.getPeakScrapSize( viewType ) ) {
+				mStats.set( viewType, RecycleBinStats.PEAK_SCRAP_SIZE, scrapPile.size() );
+			}
+		}
+
+		private int getViewType( View view ) {
+			final ViewGroup.LayoutParams lp = view.getLayoutParams();
+			return lp instanceof AbsHListView.LayoutParams ? ( (AbsHListView.LayoutParams) lp ).viewType : ITEM_VIEW_TYPE_IGNORE;
+		}
+
+		/**
+		 * Prints the recycler counters and the views held because of their transient state. Views which stay in there across
+		 * layouts usually have an animation or a running state which is never cleared, and leak until the adapter changes.
+		 */
+		void dump( PrintWriter writer ) {
+			final RecycleBinStats stats = getStats();
+			for ( int i = 0; i < mViewTypeCount; i++ ) {
+				writer.println( "  type " + i + ": scrap=" + stats.getScrapSize( i ) + " peak=" + stats.getPeakScrapSize( i )
+						+ " created=" + stats.getCreatedCount( i ) + " reused=" + stats.getReusedCount( i ) + " evicted="
+						+ stats.getEvictedCount( i ) + " skipped=" + stats.getSkippedCount( i ) + " transientRetained="
+						+ stats.getTransientRetainedCount( i ) + " transientReleased=" + stats.getTransientReleasedCount( i )
+						+ " transientDropped=" + stats.getTransientDroppedCount( i ) );
+			}
+			if ( mTransientStateViews != null ) {
+				writer.println( "  transient state views by position: " + mTransientStateViews.size() );
+				for ( int i = 0; i < mTransientStateViews.size(); i++ ) {
+					dumpTransientStateView( writer, "position " + mTransientStateViews.keyAt( i ), mTransientStateViews.valueAt( i ) );
+				}
+			}
+			if ( mTransientStateViewsById != null ) {
+				writer.println( "  transient state views by id: " + mTransientStateViewsById.size() );
+				for ( int i = 0; i < mTransientStateViewsById.size(); i++ ) {
+					dumpTransientStateView( writer, "id " + mTransientStateViewsById.keyAt( i ), mTransientStateViewsById.valueAt( i ) );
+				}
+			}
+		}
+
+		@SuppressLint ( "NewApi" )
+		private void dumpTransientStateView( PrintWriter writer, String key, View view ) {
+			final boolean hasTransientState = android.os.Build.VERSION.SDK_INT >= 16 ? view.hasTransientState() : false;
+			writer.println( "    " + key + ": " + view.getClass().getName() + " viewType=" + getViewType( view )
+					+ " hasTransientState=" + hasTransientState + " attached=" + ( view.getParent() != null ) );
+		}
+
+		/**
+		 * Removes a view discarded from the scrap heap from this list, and moves it to the shared pool if there's one with room
+		 * for it.
+		 */
+		private void releaseScrapView( View scrap ) {
+			removeDetachedView( scrap, false );
+
+			if ( mScrapEvictionListener != null ) {
+				mScrapEvictionListener.onEvictedFromScrapHeap( scrap );
+			}
+
+			if ( mRecycledViewPool != null ) {
+				final AbsHListView.LayoutParams lp = (AbsHListView.LayoutParams) scrap.getLayoutParams();
+				if ( lp != null && shouldRecycleViewType( lp.viewType ) ) {
+					mRecycledViewPool.putRecycledView( lp.viewType, scrap );
 				}
 			}
-			return null;
 		}
 
 		/**
@@ -5647,6 +7287,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 
 			lp.scrappedFromPosition = position;
+			// the view will be bound again entirely
+			lp.payloads = null;
 
 			// Don't put header or footer views or views that should be ignored
 			// into the scrap heap
@@ -5660,23 +7302,19 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 						mSkippedScrap = new ArrayList<View>();
 					}
 					mSkippedScrap.add( scrap );
+					mStats.increment( viewType, RecycleBinStats.SKIPPED );
 				}
 				if ( scrapHasTransientState ) {
-					if ( mTransientStateViews == null ) {
-						mTransientStateViews = new SparseArrayCompat<View>();
-					}
 					scrap.onStartTemporaryDetach();
-					mTransientStateViews.put( position, scrap );
+					putTransientStateView( scrap, lp, position );
 				}
 				return;
 			}
 
 			scrap.onStartTemporaryDetach();
-			if ( mViewTypeCount == 1 ) {
-				mCurrentScrap.add( scrap );
-			} else {
-				mScrapViews[viewType].add( scrap );
-			}
+			final ScrapPile scrapPile = mViewTypeCount == 1 ? mCurrentScrap : mScrapViews[viewType];
+			scrapPile.add( scrap, position );
+			onScrapped( viewType, scrapPile );
 
 			if ( android.os.Build.VERSION.SDK_INT >= 14 ) {
 				scrap.setAccessibilityDelegate( null );
@@ -5685,6 +7323,23 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			if ( mRecyclerListener != null ) {
 				mRecyclerListener.onMovedToScrapHeap( scrap );
 			}
+
+			// the limits are enforced by trimScrapViews, the view may still be attached here
+		}
+
+		private void putTransientStateView( View view, AbsHListView.LayoutParams lp, int position ) {
+			mStats.increment( lp.viewType, RecycleBinStats.TRANSIENT_RETAINED );
+			if ( mAdapterHasStableIds ) {
+				if ( mTransientStateViewsById == null ) {
+					mTransientStateViewsById = new LongSparseArray<View>();
+				}
+				mTransientStateViewsById.put( lp.itemId, view );
+			} else {
+				if ( mTransientStateViews == null ) {
+					mTransientStateViews = new SparseArrayCompat<View>();
+				}
+				mTransientStateViews.put( position, view );
+			}
 		}
 
 		/**
@@ -5710,7 +7365,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			final boolean hasListener = mRecyclerListener != null;
 			final boolean multipleScraps = mViewTypeCount > 1;
 
-			ArrayList<View> scrapViews = mCurrentScrap;
+			ScrapPile scrapViews = mCurrentScrap;
 			final int count = activeViews.length;
 			for ( int i = count - 1; i >= 0; i-- ) {
 				final View victim = activeViews[i];
@@ -5726,12 +7381,10 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 						if ( whichScrap != ITEM_VIEW_TYPE_HEADER_OR_FOOTER ||
 								scrapHasTransientState ) {
 							removeDetachedView( victim, false );
+							mStats.increment( whichScrap, RecycleBinStats.SKIPPED );
 						}
 						if ( scrapHasTransientState ) {
-							if ( mTransientStateViews == null ) {
-								mTransientStateViews = new SparseArrayCompat<View>();
-							}
-							mTransientStateViews.put( mFirstActivePosition + i, victim );
+							putTransientStateView( victim, lp, mFirstActivePosition + i );
 						}
 						continue;
 					}
@@ -5741,7 +7394,8 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 					}
 					victim.onStartTemporaryDetach();
 					lp.scrappedFromPosition = mFirstActivePosition + i;
-					scrapViews.add( victim );
+					scrapViews.add( victim, lp.scrappedFromPosition );
+					onScrapped( whichScrap, scrapViews );
 
 					if ( android.os.Build.VERSION.SDK_INT >= 14 ) {
 						victim.setAccessibilityDelegate( null );
@@ -5753,25 +7407,48 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 				}
 			}
 
+			if ( mRemappedActiveViews != null && mRemappedActiveViews.size() > 0 ) {
+				final int remappedCount = mRemappedActiveViews.size();
+				for ( int i = 0; i < remappedCount; i++ ) {
+					addScrapView( mRemappedActiveViews.valueAt( i ), mRemappedActiveViews.keyAt( i ) );
+				}
+				mRemappedActiveViews.clear();
+				// views which cannot be recycled have been skipped
+				removeSkippedScrap();
+			}
+
+			if ( mActiveViewsById != null ) {
+				// items which are no longer on screen, or no longer in the adapter
+				final int countById = mActiveViewsById.size();
+				for ( int i = 0; i < countById; i++ ) {
+					final View victim = mActiveViewsById.valueAt( i );
+					addScrapView( victim, ( (AbsHListView.LayoutParams) victim.getLayoutParams() ).scrappedFromPosition );
+				}
+				mActiveViewsById.clear();
+			}
+
 			pruneScrapViews();
 		}
 
 		/**
-		 * Makes sure that the size of mScrapViews does not exceed the size of mActiveViews. (This can happen if an adapter does not
-		 * recycle its views).
+		 * Makes sure that the size of mScrapViews does not exceed the size of mActiveViews, or the limit set for each view type.
+		 * (This can happen if an adapter does not recycle its views). The least recently scrapped views are evicted first and
+		 * moved to the shared pool, if any, which enforces its own per type limits.
 		 */
 		@SuppressLint ( "NewApi" )
 		private void pruneScrapViews() {
-			final int maxViews = mActiveViews.length;
-			final int viewTypeCount = mViewTypeCount;
-			final ArrayList<View>[] scrapViews = mScrapViews;
-			for ( int i = 0; i < viewTypeCount; ++i ) {
-				final ArrayList<View> scrapPile = scrapViews[i];
-				int size = scrapPile.size();
-				final int extras = size - maxViews;
-				size--;
-				for ( int j = 0; j < extras; j++ ) {
-					removeDetachedView( scrapPile.remove( size-- ), false );
+			trimScrapViews();
+
+			if ( mTransientStateViewsById != null ) {
+				for ( int i = 0; i < mTransientStateViewsById.size(); i++ ) {
+					final View v = mTransientStateViewsById.valueAt( i );
+
+					// this code is never executed on android < 16
+					if ( !v.hasTransientState() ) {
+						mStats.increment( getViewType( v ), RecycleBinStats.TRANSIENT_RELEASED );
+						mTransientStateViewsById.removeAt( i );
+						i--;
+					}
 				}
 			}
 
@@ -5781,6 +7458,7 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 
 					// this code is never executed on android < 16
 					if ( !v.hasTransientState() ) {
+						mStats.increment( getViewType( v ), RecycleBinStats.TRANSIENT_RELEASED );
 						mTransientStateViews.removeAt( i );
 						i--;
 					}
@@ -5793,13 +7471,12 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		 */
 		void reclaimScrapViews( List<View> views ) {
 			if ( mViewTypeCount == 1 ) {
-				views.addAll( mCurrentScrap );
+				mCurrentScrap.addTo( views );
 			} else {
 				final int viewTypeCount = mViewTypeCount;
-				final ArrayList<View>[] scrapViews = mScrapViews;
+				final ScrapPile[] scrapViews = mScrapViews;
 				for ( int i = 0; i < viewTypeCount; ++i ) {
-					final ArrayList<View> scrapPile = scrapViews[i];
-					views.addAll( scrapPile );
+					scrapViews[i].addTo( views );
 				}
 			}
 		}
@@ -5812,18 +7489,16 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 		 */
 		void setCacheColorHint( int color ) {
 			if ( mViewTypeCount == 1 ) {
-				final ArrayList<View> scrap = mCurrentScrap;
-				final int scrapCount = scrap.size();
-				for ( int i = 0; i < scrapCount; i++ ) {
-					scrap.get( i ).setDrawingCacheBackgroundColor( color );
+				final ScrapPile scrap = mCurrentScrap;
+				for ( int slot = scrap.oldestSlot(); slot != ScrapPile.NO_SLOT; slot = scrap.nextSlot( slot ) ) {
+					scrap.viewAt( slot ).setDrawingCacheBackgroundColor( color );
 				}
 			} else {
 				final int typeCount = mViewTypeCount;
 				for ( int i = 0; i < typeCount; i++ ) {
-					final ArrayList<View> scrap = mScrapViews[i];
-					final int scrapCount = scrap.size();
-					for ( int j = 0; j < scrapCount; j++ ) {
-						scrap.get( j ).setDrawingCacheBackgroundColor( color );
+					final ScrapPile scrap = mScrapViews[i];
+					for ( int slot = scrap.oldestSlot(); slot != ScrapPile.NO_SLOT; slot = scrap.nextSlot( slot ) ) {
+						scrap.viewAt( slot ).setDrawingCacheBackgroundColor( color );
 					}
 				}
 			}
@@ -5838,21 +7513,4 @@ public abstract class AbsHListView extends AdapterView<ListAdapter> implements V
 			}
 		}
 	}
-
-	static View retrieveFromScrap( ArrayList<View> scrapViews, int position ) {
-		int size = scrapViews.size();
-		if ( size > 0 ) {
-			// See if we still have a view for this position.
-			for ( int i = 0; i < size; i++ ) {
-				View view = scrapViews.get( i );
-				if ( ( (AbsHListView.LayoutParams) view.getLayoutParams() ).scrappedFromPosition == position ) {
-					scrapViews.remove( i );
-					return view;
-				}
-			}
-			return scrapViews.remove( size - 1 );
-		} else {
-			return null;
-		}
-	}
 }
@@ -112,6 +112,11 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 	 */
 	static final int SYNC_MAX_DURATION_MILLIS = 100;
 
+	/**
+	 * Positions of the adapter ids, used when the adapter has stable ids but is not an {@link ItemIdLookup}
+	 */
+	final ItemIdIndex mItemIdIndex = new ItemIdIndex();
+
 	/**
 	 * Indicates that this view is currently being laid out.
 	 */
@@ -815,6 +820,7 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 				Log.i( LOG_TAG, "AdapterDataSetObserver::onChanged" );
 			}
 			mDataChanged = true;
+			mItemIdIndex.invalidate();
 			mOldItemCount = mItemCount;
 			mItemCount = getAdapter().getCount();
 
@@ -844,6 +850,7 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 				Log.i( LOG_TAG, "AdapterDataSetObserver::onInvalidated" );
 			}
 			mDataChanged = true;
+			mItemIdIndex.invalidate();
 
 			if ( AdapterView.this.getAdapter().hasStableIds() ) {
 				// Remember the current state for the case where our hosting activity is being
@@ -1092,7 +1099,9 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 
 	/**
 	 * Searches the adapter for a position matching mSyncColId. The search starts at mSyncPosition and then alternates between moving
-	 * up and moving down until 1) we find the right position, or 2) we run out of time, or 3) we have looked at every position
+	 * up and moving down until 1) we find the right position, or 2) we run out of time, or 3) we have looked at every position.
+	 * If the item is not at mSyncPosition anymore and the adapter has stable ids, {@link #findPositionForItemId(long)} is used
+	 * instead, so the item is found regardless of how far it moved.
 	 * 
 	 * @return Position of the col that matches mSyncColId, or {@link #INVALID_POSITION} if it can't be found
 	 */
@@ -1141,6 +1150,15 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 			return INVALID_POSITION;
 		}
 
+		// Most of the times the item didn't move
+		if ( adapter.getItemId( seed ) == idToMatch ) {
+			return seed;
+		}
+
+		if ( canFindPositionForItemId() ) {
+			return findPositionForItemId( idToMatch );
+		}
+
 		while ( SystemClock.uptimeMillis() <= endTime ) {
 			colId = adapter.getItemId( seed );
 			if ( colId == idToMatch ) {
@@ -1175,6 +1193,58 @@ public abstract class AdapterView<T extends Adapter> extends ViewGroup {
 		return INVALID_POSITION;
 	}
 
+	/**
+	 * @return true if {@link #findPositionForItemId(long)} can be used, that is if the adapter is an {@link ItemIdLookup} or has
+	 *         stable ids
+	 */
+	boolean canFindPositionForItemId() {
+		final T adapter = getAdapter();
+		if ( adapter == null ) {
+			return false;
+		}
+		return getItemIdLookup( adapter ) != null || adapter.hasStableIds();
+	}
+
+	/**
+	 * Returns the position of the item with the given id, asking the adapter if it is an {@link ItemIdLookup} or using an index of
+	 * all the ids otherwise. The index is built with a single pass over the adapter the first time it's needed after a data set
+	 * change.
+	 * 
+	 * @return the position of the item, or {@link #INVALID_POSITION}
+	 */
+	int findPositionForItemId( long id ) {
+		final T adapter = getAdapter();
+		if ( adapter == null || id == INVALID_COL_ID ) {
+			return INVALID_POSITION;
+		}
+
+		final ItemIdLookup lookup = getItemIdLookup( adapter );
+		if ( lookup != null ) {
+			final int position = lookup.getPositionForItemId( id );
+			if ( position < 0 ) {
+				return INVALID_POSITION;
+			}
+			// positions of the wrapped adapter come after the header views
+			return adapter instanceof HeaderViewListAdapter ? position + ( (HeaderViewListAdapter) adapter ).getHeadersCount()
+					: position;
+		}
+
+		int position = mItemIdIndex.getPosition( adapter, id );
+		if ( position != INVALID_POSITION && ( position >= adapter.getCount() || adapter.getItemId( position ) != id ) ) {
+			// the adapter content changed without a notification, index it again
+			mItemIdIndex.invalidate();
+			position = mItemIdIndex.getPosition( adapter, id );
+		}
+		return position;
+	}
+
+	private static ItemIdLookup getItemIdLookup( Adapter adapter ) {
+		if ( adapter instanceof HeaderViewListAdapter ) {
+			adapter = ( (HeaderViewListAdapter) adapter ).getWrappedAdapter();
+		}
+		return adapter instanceof ItemIdLookup ? (ItemIdLookup) adapter : null;
+	}
+
 	/**
 	 * Find a position that can be selected (i.e., is not a separator).
 	 * 
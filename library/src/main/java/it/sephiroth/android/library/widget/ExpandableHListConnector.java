@@ -27,6 +27,9 @@ import android.widget.*;
 import java.util.ArrayList;
 import java.util.Collections;
 
+import it.sephiroth.android.library.util.IntBitSet;
+import it.sephiroth.android.library.util.LongIntHashMap;
+
 /*
  * Implementation notes:
  * 
@@ -58,17 +61,33 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	 * List of metadata for the currently expanded groups. The metadata consists
 	 * of data essential for efficiently translating between flat list positions
 	 * and group/child positions. See {@link ExpandableHListConnector.GroupMetadata}.
+	 * Inserting or removing an entry shifts the following ones, so expanding or
+	 * collapsing a group is still O(number of expanded groups) because of this
+	 * list, even though the flat position index update is O(log n).
 	 */
 	private ArrayList<GroupMetadata> mExpGroupMetadataList;
 
-	/** The number of children from all currently expanded groups */
-	private int mTotalExpChildrenCount;
+	/**
+	 * Flat list positions of all the groups, accounting for the children
+	 * of the expanded ones
+	 */
+	private final GroupFlatPositionIndex mFlatPositionIndex = new GroupFlatPositionIndex();
+
+	/**
+	 * Positions and ids of the expanded groups, kept in sync with
+	 * mExpGroupMetadataList for constant time lookups
+	 */
+	private final IntBitSet mExpandedGroups = new IntBitSet();
+	private final LongIntHashMap mExpandedGroupIds = new LongIntHashMap();
 
 	/** The maximum number of allowable expanded groups. Defaults to 'no limit' */
 	private int mMaxExpGroupCount = Integer.MAX_VALUE;
 
 	/** Change observer used to have ExpandableListAdapter changes pushed to us */
-	private final DataSetObserver mDataSetObserver = new MyDataSetObserver();
+	private final MyDataSetObserver mDataSetObserver = new MyDataSetObserver();
+
+	/** Positions of the group ids, used when the adapter has stable ids but is not an {@link ItemIdLookup} */
+	private final ItemIdIndex mGroupIdIndex = new ItemIdIndex();
 
 	/**
 	 * Constructs the connector
@@ -87,18 +106,29 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	public void setExpandableListAdapter( ExpandableListAdapter expandableListAdapter ) {
 		if( mExpandableListAdapter != null ) {
 			mExpandableListAdapter.unregisterDataSetObserver( mDataSetObserver );
+			if( mExpandableListAdapter instanceof GroupChangeNotifier ) {
+				( (GroupChangeNotifier) mExpandableListAdapter ).unregisterGroupChangeObserver( mDataSetObserver );
+			}
 		}
 
 		mExpandableListAdapter = expandableListAdapter;
+		mGroupIdIndex.invalidate();
 		expandableListAdapter.registerDataSetObserver( mDataSetObserver );
+		if( expandableListAdapter instanceof GroupChangeNotifier ) {
+			( (GroupChangeNotifier) expandableListAdapter ).registerGroupChangeObserver( mDataSetObserver );
+		}
+
+		mExpGroupMetadataList.clear();
+		mFlatPositionIndex.reset( expandableListAdapter.getGroupCount() );
+		syncExpandedGroups();
 	}
 
 	/**
 	 * Translates a flat list position to either a) group pos if the specified
 	 * flat list position corresponds to a group, or b) child pos if it
-	 * corresponds to a child.  Performs a binary search on the expanded
-	 * groups list to find the flat list pos if it is an exp group, otherwise
-	 * finds where the flat list pos fits in between the exp groups.
+	 * corresponds to a child.  The group is found with a descent of the
+	 * flat position index, then a binary search on the expanded groups list
+	 * tells whether it is expanded and where it would be inserted otherwise.
 	 *
 	 * @param flPos the flat list position to be translated
 	 * @return the group position or child position of the specified flat list
@@ -108,15 +138,8 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	PositionMetadata getUnflattenedPos( final int flPos ) {
 	    /* Keep locally since frequent use */
 		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
-		final int numExpGroups = egml.size();
-        
-        /* Binary search variables */
-		int leftExpGroupIndex = 0;
-		int rightExpGroupIndex = numExpGroups - 1;
-		int midExpGroupIndex = 0;
-		GroupMetadata midExpGm;
 
-		if( numExpGroups == 0 ) {
+		if( egml.isEmpty() ) {
             /*
              * There aren't any expanded groups (hence no visible children
              * either), so flPos must be a group and its group pos will be the
@@ -125,122 +148,31 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			return PositionMetadata.obtain( flPos, ExpandableHListPosition.GROUP, flPos, - 1, null, 0 );
 		}
 
-        /*
-         * Binary search over the expanded groups to find either the exact
-         * expanded group (if we're looking for a group) or the group that
-         * contains the child we're looking for. If we are looking for a
-         * collapsed group, we will not have a direct match here, but we will
-         * find the expanded group just before the group we're searching for (so
-         * then we can calculate the group position of the group we're searching
-         * for). If there isn't an expanded group prior to the group being
-         * searched for, then the group being searched for's group position is
-         * the same as the flat list position (since there are no children before
-         * it, and all groups before it are collapsed).
-         */
-		while( leftExpGroupIndex <= rightExpGroupIndex ) {
-			midExpGroupIndex = ( rightExpGroupIndex - leftExpGroupIndex ) / 2 + leftExpGroupIndex;
-			midExpGm = egml.get( midExpGroupIndex );
-
-			if( flPos > midExpGm.lastChildFlPos ) {
-                /*
-                 * The flat list position is after the current middle group's
-                 * last child's flat list position, so search right
-                 */
-				leftExpGroupIndex = midExpGroupIndex + 1;
-			}
-			else if( flPos < midExpGm.flPos ) {
-                /*
-                 * The flat list position is before the current middle group's
-                 * flat list position, so search left
-                 */
-				rightExpGroupIndex = midExpGroupIndex - 1;
-			}
-			else if( flPos == midExpGm.flPos ) {
-                /*
-                 * The flat list position is this middle group's flat list
-                 * position, so we've found an exact hit
-                 */
-				return PositionMetadata.obtain( flPos, ExpandableHListPosition.GROUP, midExpGm.gPos, - 1, midExpGm, midExpGroupIndex );
-			}
-			else if( flPos <= midExpGm.lastChildFlPos
-                    /* && flPos > midGm.flPos as deduced from previous
-                     * conditions */ ) {
-                /* The flat list position is a child of the middle group */
-                
-                /* 
-                 * Subtract the first child's flat list position from the
-                 * specified flat list pos to get the child's position within
-                 * the group
-                 */
-				final int childPos = flPos - ( midExpGm.flPos + 1 );
-				return PositionMetadata.obtain( flPos, ExpandableHListPosition.CHILD, midExpGm.gPos, childPos, midExpGm, midExpGroupIndex );
-			}
-		}
-
-        /* 
-         * If we've reached here, it means the flat list position must be a
-         * group that is not expanded, since otherwise we would have hit it
-         * in the above search.
-         */
-
+		final int groupPos = mFlatPositionIndex.getGroup( flPos );
+		final int expGroupIndex = indexOfExpandedGroup( groupPos );
 
-		/**
-		 * If we are to expand this group later, where would it go in the
-		 * mExpGroupMetadataList ?
-		 */
-		int insertPosition = 0;
-
-		/** What is its group position in the list of all groups? */
-		int groupPos = 0;
-        
-        /*
-         * To figure out exact insertion and prior group positions, we need to
-         * determine how we broke out of the binary search.  We backtrack
-         * to see this.
-         */
-		if( leftExpGroupIndex > midExpGroupIndex ) {
-            
+		if( expGroupIndex < 0 ) {
             /*
-             * This would occur in the first conditional, so the flat list
-             * insertion position is after the left group. Also, the
-             * leftGroupPos is one more than it should be (since that broke out
-             * of our binary search), so we decrement it.
+             * The flat list position is a collapsed group, remember where it
+             * would go in mExpGroupMetadataList if it's expanded later
              */
-			final GroupMetadata leftExpGm = egml.get( leftExpGroupIndex - 1 );
-
-			insertPosition = leftExpGroupIndex;
-
-            /*
-             * Sums the number of groups between the prior exp group and this
-             * one, and then adds it to the prior group's group pos
-             */
-			groupPos = ( flPos - leftExpGm.lastChildFlPos ) + leftExpGm.gPos;
+			return PositionMetadata.obtain( flPos, ExpandableHListPosition.GROUP, groupPos, - 1, null, - expGroupIndex - 1 );
 		}
-		else if( rightExpGroupIndex < midExpGroupIndex ) {
 
-            /*
-             * This would occur in the second conditional, so the flat list
-             * insertion position is before the right group. Also, the
-             * rightGroupPos is one less than it should be, so increment it.
-             */
-			final GroupMetadata rightExpGm = egml.get( ++ rightExpGroupIndex );
+		final GroupMetadata expGm = egml.get( expGroupIndex );
+		updateFlatPositions( expGm );
 
-			insertPosition = rightExpGroupIndex;
-            
-            /*
-             * Subtracts this group's flat list pos from the group after's flat
-             * list position to find out how many groups are in between the two
-             * groups. Then, subtracts that number from the group after's group
-             * pos to get this group's pos.
-             */
-			groupPos = rightExpGm.gPos - ( rightExpGm.flPos - flPos );
-		}
-		else {
-			// TODO: clean exit
-			throw new RuntimeException( "Unknown state" );
+		if( flPos == expGm.flPos ) {
+			return PositionMetadata.obtain( flPos, ExpandableHListPosition.GROUP, groupPos, - 1, expGm, expGroupIndex );
 		}
 
-		return PositionMetadata.obtain( flPos, ExpandableHListPosition.GROUP, groupPos, - 1, null, insertPosition );
+        /* 
+         * The flat list position is a child of the group. Subtract the first
+         * child's flat list position from the specified flat list pos to get
+         * the child's position within the group
+         */
+		final int childPos = flPos - ( expGm.flPos + 1 );
+		return PositionMetadata.obtain( flPos, ExpandableHListPosition.CHILD, groupPos, childPos, expGm, expGroupIndex );
 	}
 
 	/**
@@ -256,15 +188,8 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	 */
 	PositionMetadata getFlattenedPos( final ExpandableHListPosition pos ) {
 		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
-		final int numExpGroups = egml.size();
-
-        /* Binary search variables */
-		int leftExpGroupIndex = 0;
-		int rightExpGroupIndex = numExpGroups - 1;
-		int midExpGroupIndex = 0;
-		GroupMetadata midExpGm;
 
-		if( numExpGroups == 0 ) {
+		if( egml.isEmpty() ) {
             /*
              * There aren't any expanded groups, so flPos must be a group and
              * its flPos will be the same as its group pos.  The
@@ -273,90 +198,107 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			return PositionMetadata.obtain( pos.groupPos, pos.type, pos.groupPos, pos.childPos, null, 0 );
 		}
 
-        /*
-         * Binary search over the expanded groups to find either the exact
-         * expanded group (if we're looking for a group) or the group that
-         * contains the child we're looking for.
-         */
-		while( leftExpGroupIndex <= rightExpGroupIndex ) {
-			midExpGroupIndex = ( rightExpGroupIndex - leftExpGroupIndex ) / 2 + leftExpGroupIndex;
-			midExpGm = egml.get( midExpGroupIndex );
+		final int expGroupIndex = indexOfExpandedGroup( pos.groupPos );
 
-			if( pos.groupPos > midExpGm.gPos ) {
-                /*
-                 * It's after the current middle group, so search right
-                 */
-				leftExpGroupIndex = midExpGroupIndex + 1;
+		if( expGroupIndex >= 0 ) {
+			final GroupMetadata expGm = egml.get( expGroupIndex );
+			updateFlatPositions( expGm );
+
+			if( pos.type == ExpandableHListPosition.GROUP ) {
+                /* If it's a group, give them this matched group's flPos */
+				return PositionMetadata.obtain( expGm.flPos, pos.type, pos.groupPos, pos.childPos, expGm, expGroupIndex );
 			}
-			else if( pos.groupPos < midExpGm.gPos ) {
-                /*
-                 * It's before the current middle group, so search left
-                 */
-				rightExpGroupIndex = midExpGroupIndex - 1;
+			else if( pos.type == ExpandableHListPosition.CHILD ) {
+                /* If it's a child, calculate the flat list pos */
+				return PositionMetadata.obtain( expGm.flPos + pos.childPos + 1, pos.type, pos.groupPos, pos.childPos, expGm, expGroupIndex );
 			}
-			else if( pos.groupPos == midExpGm.gPos ) {
-                /*
-                 * It's this middle group, exact hit
-                 */
-
-				if( pos.type == ExpandableHListPosition.GROUP ) {
-                    /* If it's a group, give them this matched group's flPos */
-					return PositionMetadata.obtain( midExpGm.flPos, pos.type, pos.groupPos, pos.childPos, midExpGm, midExpGroupIndex );
-				}
-				else if( pos.type == ExpandableHListPosition.CHILD ) {
-                    /* If it's a child, calculate the flat list pos */
-					return PositionMetadata.obtain( midExpGm.flPos + pos.childPos + 1, pos.type, pos.groupPos, pos.childPos, midExpGm, midExpGroupIndex );
-				}
-				else {
-					return null;
-				}
+			else {
+				return null;
 			}
 		}
 
         /* 
-         * If we've reached here, it means there was no match in the expanded
-         * groups, so it must be a collapsed group that they're search for
+         * There was no match in the expanded groups, so it must be a
+         * collapsed group that they're search for
          */
 		if( pos.type != ExpandableHListPosition.GROUP ) {
             /* If it isn't a group, return null */
 			return null;
 		}
-        
-        /*
-         * To figure out exact insertion and prior group positions, we need to
-         * determine how we broke out of the binary search. We backtrack to see
-         * this.
-         */
-		if( leftExpGroupIndex > midExpGroupIndex ) {
-            
-            /*
-             * This would occur in the first conditional, so the flat list
-             * insertion position is after the left group.
-             * 
-             * The leftGroupPos is one more than it should be (from the binary
-             * search loop) so we subtract 1 to get the actual left group.  Since
-             * the insertion point is AFTER the left group, we keep this +1
-             * value as the insertion point
-             */
-			final GroupMetadata leftExpGm = egml.get( leftExpGroupIndex - 1 );
-			final int flPos = leftExpGm.lastChildFlPos + ( pos.groupPos - leftExpGm.gPos );
 
-			return PositionMetadata.obtain( flPos, pos.type, pos.groupPos, pos.childPos, null, leftExpGroupIndex );
+		final int groupCount = mFlatPositionIndex.getGroupCount();
+		int flPos = mFlatPositionIndex.getFlatPosition( pos.groupPos );
+		if( pos.groupPos > groupCount ) {
+			flPos += pos.groupPos - groupCount;
 		}
-		else if( rightExpGroupIndex < midExpGroupIndex ) {
+		return PositionMetadata.obtain( flPos, pos.type, pos.groupPos, pos.childPos, null, - expGroupIndex - 1 );
+	}
 
-            /*
-             * This would occur in the second conditional, so the flat list
-             * insertion position is before the right group. Also, the
-             * rightGroupPos is one less than it should be (from binary search
-             * loop), so we increment to it.
-             */
-			final GroupMetadata rightExpGm = egml.get( ++ rightExpGroupIndex );
-			final int flPos = rightExpGm.flPos - ( rightExpGm.gPos - pos.groupPos );
-			return PositionMetadata.obtain( flPos, pos.type, pos.groupPos, pos.childPos, null, rightExpGroupIndex );
+	/**
+	 * Translates a flat list position to a packed position, as returned by
+	 * {@link ExpandableHListView#getPackedPositionForGroup(int)} or
+	 * {@link ExpandableHListView#getPackedPositionForChild(int, int)}. Unlike
+	 * {@link #getUnflattenedPos(int)} this doesn't obtain any object, use it
+	 * for lookups which don't need the expanded group metadata.
+	 *
+	 * @param flPos the flat list position to be translated
+	 * @return the packed position of the group or child
+	 */
+	long getUnflattenedPackedPos( final int flPos ) {
+		final GroupFlatPositionIndex index = mFlatPositionIndex;
+		final int groupPos = index.getGroup( flPos );
+
+		if( groupPos < index.getGroupCount() ) {
+			// Collapsed groups have no children in the index, so their flat position is always flPos
+			final int childPos = flPos - index.getFlatPosition( groupPos ) - 1;
+			if( childPos >= 0 ) {
+				return ExpandableHListView.getPackedPositionForChild( groupPos, childPos );
+			}
 		}
-		else {
-			return null;
+		return ExpandableHListView.getPackedPositionForGroup( groupPos );
+	}
+
+	private static boolean isPackedChild( long packedPos ) {
+		return ExpandableHListView.getPackedPositionType( packedPos ) == ExpandableHListView.PACKED_POSITION_TYPE_CHILD;
+	}
+
+	/**
+	 * Binary search of a group in the expanded groups list
+	 *
+	 * @return the index of the group in mExpGroupMetadataList if it is
+	 * expanded, otherwise ( - insertion index - 1 )
+	 */
+	private int indexOfExpandedGroup( int groupPos ) {
+		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
+		int low = 0;
+		int high = egml.size() - 1;
+
+		while( low <= high ) {
+			final int mid = ( low + high ) >>> 1;
+			final int midGroupPos = egml.get( mid ).gPos;
+
+			if( midGroupPos < groupPos ) {
+				low = mid + 1;
+			}
+			else if( midGroupPos > groupPos ) {
+				high = mid - 1;
+			}
+			else {
+				return mid;
+			}
+		}
+		return - ( low + 1 );
+	}
+
+	/**
+	 * The flat list positions in the {@link GroupMetadata} are only updated
+	 * when the connector hands them out, since expanding or collapsing a
+	 * group moves all the following ones.
+	 */
+	private void updateFlatPositions( GroupMetadata gm ) {
+		if( gm.gPos < mFlatPositionIndex.getGroupCount() ) {
+			gm.flPos = mFlatPositionIndex.getFlatPosition( gm.gPos );
+			gm.lastChildFlPos = gm.flPos + mFlatPositionIndex.getChildCount( gm.gPos );
 		}
 	}
 
@@ -367,20 +309,17 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 	@Override
 	public boolean isEnabled( int flatListPos ) {
-		final PositionMetadata metadata = getUnflattenedPos( flatListPos );
-		final ExpandableHListPosition pos = metadata.position;
+		final long packedPos = getUnflattenedPackedPos( flatListPos );
 
 		boolean retValue;
-		if( pos.type == ExpandableHListPosition.CHILD ) {
-			retValue = mExpandableListAdapter.isChildSelectable( pos.groupPos, pos.childPos );
+		if( isPackedChild( packedPos ) ) {
+			retValue = mExpandableListAdapter.isChildSelectable( ExpandableHListView.getPackedPositionGroup( packedPos ), ExpandableHListView.getPackedPositionChild( packedPos ) );
 		}
 		else {
 			// Groups are always selectable
 			retValue = true;
 		}
 
-		metadata.recycle();
-
 		return retValue;
 	}
 
@@ -390,91 +329,78 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
          * number of children from currently expanded groups (a value we keep
          * cached in this class)
          */
-		return mExpandableListAdapter.getGroupCount() + mTotalExpChildrenCount;
+		return mExpandableListAdapter.getGroupCount() + mFlatPositionIndex.getTotalChildCount();
 	}
 
 	public Object getItem( int flatListPos ) {
-		final PositionMetadata posMetadata = getUnflattenedPos( flatListPos );
+		final long packedPos = getUnflattenedPackedPos( flatListPos );
+		final int groupPos = ExpandableHListView.getPackedPositionGroup( packedPos );
 
 		Object retValue;
-		if( posMetadata.position.type == ExpandableHListPosition.GROUP ) {
-			retValue = mExpandableListAdapter.getGroup( posMetadata.position.groupPos );
-		}
-		else if( posMetadata.position.type == ExpandableHListPosition.CHILD ) {
-			retValue = mExpandableListAdapter.getChild( posMetadata.position.groupPos, posMetadata.position.childPos );
+		if( isPackedChild( packedPos ) ) {
+			retValue = mExpandableListAdapter.getChild( groupPos, ExpandableHListView.getPackedPositionChild( packedPos ) );
 		}
 		else {
-			// TODO: clean exit
-			throw new RuntimeException( "Flat list position is of unknown type" );
+			retValue = mExpandableListAdapter.getGroup( groupPos );
 		}
 
-		posMetadata.recycle();
-
 		return retValue;
 	}
 
 	public long getItemId( int flatListPos ) {
-		final PositionMetadata posMetadata = getUnflattenedPos( flatListPos );
-		final long groupId = mExpandableListAdapter.getGroupId( posMetadata.position.groupPos );
+		final long packedPos = getUnflattenedPackedPos( flatListPos );
+		final int groupPos = ExpandableHListView.getPackedPositionGroup( packedPos );
+		final long groupId = mExpandableListAdapter.getGroupId( groupPos );
 
 		long retValue;
-		if( posMetadata.position.type == ExpandableHListPosition.GROUP ) {
-			retValue = mExpandableListAdapter.getCombinedGroupId( groupId );
-		}
-		else if( posMetadata.position.type == ExpandableHListPosition.CHILD ) {
-			final long childId = mExpandableListAdapter.getChildId( posMetadata.position.groupPos, posMetadata.position.childPos );
+		if( isPackedChild( packedPos ) ) {
+			final long childId = mExpandableListAdapter.getChildId( groupPos, ExpandableHListView.getPackedPositionChild( packedPos ) );
 			retValue = mExpandableListAdapter.getCombinedChildId( groupId, childId );
 		}
 		else {
-			// TODO: clean exit
-			throw new RuntimeException( "Flat list position is of unknown type" );
+			retValue = mExpandableListAdapter.getCombinedGroupId( groupId );
 		}
 
-		posMetadata.recycle();
-
 		return retValue;
 	}
 
 	public View getView( int flatListPos, View convertView, ViewGroup parent ) {
-		final PositionMetadata posMetadata = getUnflattenedPos( flatListPos );
+		final long packedPos = getUnflattenedPackedPos( flatListPos );
+		final int groupPos = ExpandableHListView.getPackedPositionGroup( packedPos );
 
 		View retValue;
-		if( posMetadata.position.type == ExpandableHListPosition.GROUP ) {
-			retValue = mExpandableListAdapter.getGroupView( posMetadata.position.groupPos, posMetadata.isExpanded(), convertView, parent );
-		}
-		else if( posMetadata.position.type == ExpandableHListPosition.CHILD ) {
-			final boolean isLastChild = posMetadata.groupMetadata.lastChildFlPos == flatListPos;
+		if( isPackedChild( packedPos ) ) {
+			final int childPos = ExpandableHListView.getPackedPositionChild( packedPos );
+			final boolean isLastChild = childPos == mFlatPositionIndex.getChildCount( groupPos ) - 1;
 
-			retValue = mExpandableListAdapter.getChildView( posMetadata.position.groupPos, posMetadata.position.childPos, isLastChild, convertView, parent );
+			retValue = mExpandableListAdapter.getChildView( groupPos, childPos, isLastChild, convertView, parent );
 		}
 		else {
-			// TODO: clean exit
-			throw new RuntimeException( "Flat list position is of unknown type" );
+			retValue = mExpandableListAdapter.getGroupView( groupPos, isGroupExpanded( groupPos ), convertView, parent );
 		}
 
-		posMetadata.recycle();
-
 		return retValue;
 	}
 
 	@Override
 	public int getItemViewType( int flatListPos ) {
-		final PositionMetadata metadata = getUnflattenedPos( flatListPos );
-		final ExpandableHListPosition pos = metadata.position;
+		final long packedPos = getUnflattenedPackedPos( flatListPos );
+		final int groupPos = ExpandableHListView.getPackedPositionGroup( packedPos );
+		final boolean isChild = isPackedChild( packedPos );
 
 		int retValue;
 		if( mExpandableListAdapter instanceof HeterogeneousExpandableList ) {
 			HeterogeneousExpandableList adapter = (HeterogeneousExpandableList) mExpandableListAdapter;
-			if( pos.type == ExpandableHListPosition.GROUP ) {
-				retValue = adapter.getGroupType( pos.groupPos );
+			if( ! isChild ) {
+				retValue = adapter.getGroupType( groupPos );
 			}
 			else {
-				final int childType = adapter.getChildType( pos.groupPos, pos.childPos );
+				final int childType = adapter.getChildType( groupPos, ExpandableHListView.getPackedPositionChild( packedPos ) );
 				retValue = adapter.getGroupTypeCount() + childType;
 			}
 		}
 		else {
-			if( pos.type == ExpandableHListPosition.GROUP ) {
+			if( ! isChild ) {
 				retValue = 0;
 			}
 			else {
@@ -482,8 +408,6 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			}
 		}
 
-		metadata.recycle();
-
 		return retValue;
 	}
 
@@ -504,8 +428,9 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	}
 
 	/**
-	 * Traverses the expanded group metadata list and fills in the flat list
-	 * positions.
+	 * Traverses the expanded group metadata list, fills in the flat list
+	 * positions and builds the flat position index again. This is O(number
+	 * of groups) and is only needed when the adapter content changes.
 	 *
 	 * @param forceChildrenCountRefresh Forces refreshing of the children count
 	 *                                  for all expanded groups.
@@ -517,11 +442,19 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	private void refreshExpGroupMetadataList(
 			boolean forceChildrenCountRefresh, boolean syncGroupPositions ) {
 		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
+		final GroupFlatPositionIndex index = mFlatPositionIndex;
 		int egmlSize = egml.size();
 		int curFlPos = 0;
-        
-        /* Update child count as we go through */
-		mTotalExpChildrenCount = 0;
+
+		if( ! forceChildrenCountRefresh ) {
+			// Bring the children counts of the metadata up to date before the index is reset
+			for( int i = 0; i < egmlSize; i++ ) {
+				GroupMetadata curGm = egml.get( i );
+				if( curGm.lastChildFlPos != GroupMetadata.REFRESH ) {
+					updateFlatPositions( curGm );
+				}
+			}
+		}
 
 		if( syncGroupPositions ) {
 			// We need to check whether any groups have moved positions
@@ -548,6 +481,9 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			}
 		}
 
+		final int groupCount = mExpandableListAdapter.getGroupCount();
+		index.reset( groupCount );
+
 		int gChildrenCount;
 		int lastGPos = 0;
 		for( int i = 0; i < egmlSize; i++ ) {
@@ -567,9 +503,10 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
                  */
 				gChildrenCount = curGm.lastChildFlPos - curGm.flPos;
 			}
-            
-            /* Update */
-			mTotalExpChildrenCount += gChildrenCount;
+
+			if( curGm.gPos < groupCount ) {
+				index.putChildCount( curGm.gPos, gChildrenCount );
+			}
             
             /*
              * This skips the collapsed groups and increments the flat list
@@ -584,6 +521,39 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			curFlPos += gChildrenCount;
 			curGm.lastChildFlPos = curFlPos;
 		}
+
+		index.build();
+		syncExpandedGroups();
+	}
+
+	/**
+	 * Queries the children count of the given groups again, if they are
+	 * expanded. Only the flat positions of the following groups change,
+	 * which is an O(log n) update of the index for every changed group.
+	 */
+	private void refreshGroupChildrenCount( int groupStart, int groupCount ) {
+		final GroupFlatPositionIndex index = mFlatPositionIndex;
+		final int end = Math.min( groupStart + groupCount, index.getGroupCount() );
+		for( int groupPos = mExpandedGroups.nextSetBit( Math.max( 0, groupStart ) ); groupPos >= 0 && groupPos < end;
+		     groupPos = mExpandedGroups.nextSetBit( groupPos + 1 ) ) {
+			index.setChildCount( groupPos, mExpandableListAdapter.getChildrenCount( groupPos ) );
+		}
+	}
+
+	/**
+	 * Fills the expanded groups positions and ids from mExpGroupMetadataList
+	 */
+	private void syncExpandedGroups() {
+		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
+		mExpandedGroups.clear();
+		mExpandedGroupIds.clear();
+		for( int i = egml.size() - 1; i >= 0; i-- ) {
+			final GroupMetadata gm = egml.get( i );
+			if( gm.gPos >= 0 ) {
+				mExpandedGroups.set( gm.gPos );
+			}
+			mExpandedGroupIds.put( gm.gId, gm.gPos );
+		}
 	}
 
 	/**
@@ -604,7 +574,8 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 	boolean collapseGroup( PositionMetadata posMetadata ) {
         /*
-         * Collapsing requires removal from mExpGroupMetadataList 
+         * Collapsing requires removal from mExpGroupMetadataList, which shifts
+         * the entries of the following expanded groups
          */
         
         /*
@@ -614,11 +585,19 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
          */
 		if( posMetadata.groupMetadata == null ) return false;
 
+		final int groupPos = posMetadata.groupMetadata.gPos;
+		final int expGroupIndex = indexOfExpandedGroup( groupPos );
+		if( expGroupIndex < 0 ) return false;
+
 		// Remove the group from the list of expanded groups
-		mExpGroupMetadataList.remove( posMetadata.groupMetadata );
+		final GroupMetadata collapsedGm = mExpGroupMetadataList.remove( expGroupIndex );
+		mExpandedGroups.clear( groupPos );
+		mExpandedGroupIds.remove( collapsedGm.gId );
 
-		// Refresh the metadata
-		refreshExpGroupMetadataList( false, false );
+		// Its children are no longer in the flat list
+		if( groupPos < mFlatPositionIndex.getGroupCount() ) {
+			mFlatPositionIndex.setChildCount( groupPos, 0 );
+		}
 
 		// Notify of change
 		notifyDataSetChanged();
@@ -645,7 +624,8 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 	boolean expandGroup( PositionMetadata posMetadata ) {
         /*
-         * Expanding requires insertion into the mExpGroupMetadataList 
+         * Expanding requires insertion into the mExpGroupMetadataList, which
+         * shifts the entries of the following expanded groups
          */
 
 		if( posMetadata.position.groupPos < 0 ) {
@@ -657,33 +637,35 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 		// Check to see if it's already expanded
 		if( posMetadata.groupMetadata != null ) return false;
+
+		final int groupPos = posMetadata.position.groupPos;
         
         /* Restrict number of expanded groups to mMaxExpGroupCount */
 		if( mExpGroupMetadataList.size() >= mMaxExpGroupCount ) {
             /* Collapse a group */
 			// TODO: Collapse something not on the screen instead of the first one?
-			// TODO: Could write overloaded function to take GroupMetadata to collapse
 			GroupMetadata collapsedGm = mExpGroupMetadataList.get( 0 );
-
-			int collapsedIndex = mExpGroupMetadataList.indexOf( collapsedGm );
-
 			collapseGroup( collapsedGm.gPos );
-
-            /* Decrement index if it is after the group we removed */
-			if( posMetadata.groupInsertIndex > collapsedIndex ) {
-				posMetadata.groupInsertIndex--;
-			}
 		}
 
+		// Find the insertion index again, a group may have been collapsed above
+		final int expGroupIndex = indexOfExpandedGroup( groupPos );
+		if( expGroupIndex >= 0 ) return false;
+
 		GroupMetadata expandedGm = GroupMetadata.obtain( GroupMetadata.REFRESH,
 		                                                 GroupMetadata.REFRESH,
-		                                                 posMetadata.position.groupPos,
-		                                                 mExpandableListAdapter.getGroupId( posMetadata.position.groupPos ) );
+		                                                 groupPos,
+		                                                 mExpandableListAdapter.getGroupId( groupPos ) );
 
-		mExpGroupMetadataList.add( posMetadata.groupInsertIndex, expandedGm );
+		mExpGroupMetadataList.add( - expGroupIndex - 1, expandedGm );
+		mExpandedGroups.set( groupPos );
+		mExpandedGroupIds.put( expandedGm.gId, groupPos );
 
-		// Refresh the metadata
-		refreshExpGroupMetadataList( false, false );
+		// Its children are now part of the flat list
+		if( groupPos < mFlatPositionIndex.getGroupCount() ) {
+			mFlatPositionIndex.setChildCount( groupPos, mExpandableListAdapter.getChildrenCount( groupPos ) );
+		}
+		updateFlatPositions( expandedGm );
 
 		// Notify of change
 		notifyDataSetChanged();
@@ -701,16 +683,18 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	 * @return Whether the group is currently expanded.
 	 */
 	public boolean isGroupExpanded( int groupPosition ) {
-		GroupMetadata groupMetadata;
-		for( int i = mExpGroupMetadataList.size() - 1; i >= 0; i-- ) {
-			groupMetadata = mExpGroupMetadataList.get( i );
-
-			if( groupMetadata.gPos == groupPosition ) {
-				return true;
-			}
-		}
+		return mExpandedGroups.get( groupPosition );
+	}
 
-		return false;
+	/**
+	 * Whether the group with the given id is expanded. Constant time, like
+	 * {@link #isGroupExpanded(int)}.
+	 *
+	 * @param groupId The id of the group.
+	 * @return Whether the group is expanded.
+	 */
+	public boolean isGroupIdExpanded( long groupId ) {
+		return mExpandedGroupIds.containsKey( groupId );
 	}
 
 	/**
@@ -735,7 +719,119 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	}
 
 	ArrayList<GroupMetadata> getExpandedGroupMetadataList() {
-		return mExpGroupMetadataList;
+		final ArrayList<GroupMetadata> egml = mExpGroupMetadataList;
+		for( int i = egml.size() - 1; i >= 0; i-- ) {
+			updateFlatPositions( egml.get( i ) );
+		}
+		return egml;
+	}
+
+	/**
+	 * Expands all the groups, up to the maximum number of expanded groups,
+	 * with a single notification.
+	 *
+	 * @return the number of groups which have been expanded
+	 */
+	int expandAll() {
+		final IntBitSet groups = new IntBitSet();
+		groups.set( 0, mExpandableListAdapter.getGroupCount() );
+		return setExpandedGroups( groups, null );
+	}
+
+	/**
+	 * Collapses all the groups with a single notification.
+	 *
+	 * @return the number of groups which have been collapsed
+	 */
+	int collapseAll() {
+		return setExpandedGroups( new IntBitSet(), null );
+	}
+
+	/**
+	 * Expands the given groups and collapses all the others in a single
+	 * O(number of groups) pass, then notifies the change once. If there are
+	 * more groups than the maximum number of expanded groups, only the first
+	 * ones are expanded.
+	 *
+	 * @param groups the positions of the groups to expand
+	 * @param changed if not null, receives the positions of the groups which
+	 *                have been expanded or collapsed
+	 * @return the number of groups which have been expanded or collapsed
+	 */
+	int setExpandedGroups( IntBitSet groups, IntBitSet changed ) {
+		final ExpandableListAdapter adapter = mExpandableListAdapter;
+		final GroupFlatPositionIndex index = mFlatPositionIndex;
+		final ArrayList<GroupMetadata> oldEgml = mExpGroupMetadataList;
+		final int oldSize = oldEgml.size();
+		final int groupCount = adapter.getGroupCount();
+
+		// The children counts of the groups which stay expanded are kept
+		for( int i = 0; i < oldSize; i++ ) {
+			updateFlatPositions( oldEgml.get( i ) );
+		}
+
+		final ArrayList<GroupMetadata> egml = new ArrayList<GroupMetadata>();
+		final IntBitSet collapsed = new IntBitSet();
+		final IntBitSet expanded = new IntBitSet();
+		index.reset( groupCount );
+
+		int oldIndex = 0;
+		int groupPos = groups.nextSetBit( 0 );
+		while( groupPos >= 0 && groupPos < groupCount && egml.size() < mMaxExpGroupCount ) {
+			while( oldIndex < oldSize && oldEgml.get( oldIndex ).gPos < groupPos ) {
+				collapsed.set( oldEgml.get( oldIndex++ ).gPos );
+			}
+
+			GroupMetadata gm;
+			int childrenCount;
+			if( oldIndex < oldSize && oldEgml.get( oldIndex ).gPos == groupPos ) {
+				gm = oldEgml.get( oldIndex++ );
+				childrenCount = gm.lastChildFlPos - gm.flPos;
+			}
+			else {
+				gm = GroupMetadata.obtain( GroupMetadata.REFRESH, GroupMetadata.REFRESH, groupPos, adapter.getGroupId( groupPos ) );
+				childrenCount = adapter.getChildrenCount( groupPos );
+				expanded.set( groupPos );
+			}
+
+			egml.add( gm );
+			index.putChildCount( groupPos, childrenCount );
+			groupPos = groups.nextSetBit( groupPos + 1 );
+		}
+
+		while( oldIndex < oldSize ) {
+			collapsed.set( oldEgml.get( oldIndex++ ).gPos );
+		}
+
+		index.build();
+		mExpGroupMetadataList = egml;
+		syncExpandedGroups();
+
+		final int changedCount = collapsed.cardinality() + expanded.cardinality();
+		if( changedCount == 0 ) {
+			return 0;
+		}
+
+		// Notify of change
+		notifyDataSetChanged();
+
+		// Give the callbacks
+		for( int i = collapsed.nextSetBit( 0 ); i >= 0; i = collapsed.nextSetBit( i + 1 ) ) {
+			adapter.onGroupCollapsed( i );
+		}
+		for( int i = expanded.nextSetBit( 0 ); i >= 0; i = expanded.nextSetBit( i + 1 ) ) {
+			adapter.onGroupExpanded( i );
+		}
+
+		if( changed != null ) {
+			for( int i = collapsed.nextSetBit( 0 ); i >= 0; i = collapsed.nextSetBit( i + 1 ) ) {
+				changed.set( i );
+			}
+			for( int i = expanded.nextSetBit( 0 ); i >= 0; i = expanded.nextSetBit( i + 1 ) ) {
+				changed.set( i );
+			}
+		}
+		return changedCount;
 	}
 
 	void setExpandedGroupMetadataList( ArrayList<GroupMetadata> expandedGroupMetadataList ) {
@@ -769,7 +865,8 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	 * given group ID. The search starts at the given seed position and then
 	 * alternates between moving up and moving down until 1) we find the right
 	 * position, or 2) we run out of time, or 3) we have looked at every
-	 * position
+	 * position. If the group moved and the adapter is an {@link ItemIdLookup}
+	 * or has stable ids, the group is looked up by id instead.
 	 *
 	 * @return Position of the row that matches the given row ID, or
 	 * {@link android.widget.AdapterView#INVALID_POSITION} if it can't be found
@@ -817,6 +914,27 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 			return android.widget.AdapterView.INVALID_POSITION;
 		}
 
+		// Most of the times the group didn't move
+		if( adapter.getGroupId( seedGroupPosition ) == groupIdToMatch ) {
+			return seedGroupPosition;
+		}
+
+		if( adapter instanceof ItemIdLookup ) {
+			final int position = ( (ItemIdLookup) adapter ).getPositionForItemId( groupIdToMatch );
+			return position >= 0 ? position : android.widget.AdapterView.INVALID_POSITION;
+		}
+
+		if( adapter.hasStableIds() ) {
+			int position = mGroupIdIndex.getGroupPosition( adapter, groupIdToMatch );
+			if( position != android.widget.AdapterView.INVALID_POSITION
+					&& ( position >= count || adapter.getGroupId( position ) != groupIdToMatch ) ) {
+				// the adapter content changed without a notification, index it again
+				mGroupIdIndex.invalidate();
+				position = mGroupIdIndex.getGroupPosition( adapter, groupIdToMatch );
+			}
+			return position;
+		}
+
 		while( SystemClock.uptimeMillis() <= endTime ) {
 			rowId = adapter.getGroupId( seedGroupPosition );
 			if( rowId == groupIdToMatch ) {
@@ -852,9 +970,10 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 		return android.widget.AdapterView.INVALID_POSITION;
 	}
 
-	protected class MyDataSetObserver extends DataSetObserver {
+	protected class MyDataSetObserver extends DataSetObserver implements GroupChangeObserver {
 		@Override
 		public void onChanged() {
+			mGroupIdIndex.invalidate();
 			refreshExpGroupMetadataList( true, true );
 
 			notifyDataSetChanged();
@@ -862,10 +981,18 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 		@Override
 		public void onInvalidated() {
+			mGroupIdIndex.invalidate();
 			refreshExpGroupMetadataList( true, true );
 
 			notifyDataSetInvalidated();
 		}
+
+		@Override
+		public void onGroupRangeChanged( int groupStart, int groupCount ) {
+			refreshGroupChildrenCount( groupStart, groupCount );
+
+			notifyDataSetChanged();
+		}
 	}
 
 	/**
@@ -949,8 +1076,7 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 	 */
 	static public class PositionMetadata {
 
-		private static final int MAX_POOL_SIZE = 5;
-		private static ArrayList<PositionMetadata> sPool = new ArrayList<PositionMetadata>( MAX_POOL_SIZE );
+		static final PositionPool<PositionMetadata> sPool = new PositionPool<PositionMetadata>( PositionPool.DEFAULT_MAX_POOL_SIZE );
 
 		/** Data type to hold the position and its type (child/group) */
 		public ExpandableHListPosition position;
@@ -996,14 +1122,9 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 		}
 
 		private static PositionMetadata getRecycledOrCreate() {
-			PositionMetadata pm;
-			synchronized( sPool ) {
-				if( sPool.size() > 0 ) {
-					pm = sPool.remove( 0 );
-				}
-				else {
-					return new PositionMetadata();
-				}
+			PositionMetadata pm = sPool.acquire();
+			if( pm == null ) {
+				return new PositionMetadata();
 			}
 			pm.resetState();
 			return pm;
@@ -1011,11 +1132,7 @@ class ExpandableHListConnector extends BaseAdapter implements Filterable {
 
 		public void recycle() {
 			resetState();
-			synchronized( sPool ) {
-				if( sPool.size() < MAX_POOL_SIZE ) {
-					sPool.add( this );
-				}
-			}
+			sPool.release( this );
 		}
 
 		/**
@@ -18,8 +18,6 @@ package it.sephiroth.android.library.widget;
 
 import android.widget.ExpandableListView;
 
-import java.util.ArrayList;
-
 /**
  * ExpandableHListPosition can refer to either a group's position or a child's
  * position. Referring to a child's position requires both a group position (the
@@ -29,9 +27,8 @@ import java.util.ArrayList;
  */
 class ExpandableHListPosition {
     
-    private static final int MAX_POOL_SIZE = 5;
-    private static ArrayList<ExpandableHListPosition> sPool =
-        new ArrayList<ExpandableHListPosition>(MAX_POOL_SIZE);
+    static final PositionPool<ExpandableHListPosition> sPool =
+        new PositionPool<ExpandableHListPosition>(PositionPool.DEFAULT_MAX_POOL_SIZE);
     
     /**
      * This data type represents a child position
@@ -115,13 +112,9 @@ class ExpandableHListPosition {
     }
     
     private static ExpandableHListPosition getRecycledOrCreate() {
-        ExpandableHListPosition elp;
-        synchronized (sPool) {
-            if (sPool.size() > 0) {
-                elp = sPool.remove(0);
-            } else {
-                return new ExpandableHListPosition();
-            }
+        ExpandableHListPosition elp = sPool.acquire();
+        if (elp == null) {
+            return new ExpandableHListPosition();
         }
         elp.resetState();
         return elp;
@@ -132,10 +125,6 @@ class ExpandableHListPosition {
      * PositionMetadata will handle recycling its own children.
      */
     public void recycle() {
-        synchronized (sPool) {
-            if (sPool.size() < MAX_POOL_SIZE) {
-                sPool.add(this);
-            }
-        }
+        sPool.release(this);
     }
 }
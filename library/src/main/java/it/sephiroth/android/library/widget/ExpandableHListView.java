@@ -37,8 +37,10 @@ import android.widget.ExpandableListAdapter;
 import android.widget.ListAdapter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import it.sephiroth.android.library.R;
+import it.sephiroth.android.library.util.IntBitSet;
 
 /**
  * A view that shows items in a vertically scrolling two-level list. This
@@ -198,6 +200,21 @@ public class ExpandableHListView extends HListView {
 
 	private final Rect mTempRect = new Rect();
 
+	/** Item states, the first two bits match the indexes of {@link #GROUP_STATE_SETS} */
+	private static final int ITEM_STATE_EXPANDED = 1;
+	private static final int ITEM_STATE_EMPTY = 2;
+	private static final int ITEM_STATE_CHILD = 4;
+	private static final int ITEM_STATE_LAST_CHILD = 8;
+
+	/**
+	 * States of the visible items used to draw the indicators and the dividers, keyed
+	 * by connector flat position modulo the (power of two) size of the arrays. They are
+	 * computed once per item and dropped when the data changes, so drawing a frame
+	 * doesn't need to look up the position metadata of every child.
+	 */
+	private int[] mItemStatePositions = new int[0];
+	private int[] mItemStates = new int[0];
+
 	private int mGroupIndicatorWidth;
 	private int mGroupIndicatorHeight;
 	private int mChildIndicatorWidth;
@@ -286,7 +303,8 @@ public class ExpandableHListView extends HListView {
 
 		final int myRight = getRight();
 
-		ExpandableHListConnector.PositionMetadata pos;
+		int state;
+		int type;
 		View item;
 		Drawable indicator;
 		int left, right;
@@ -319,12 +337,13 @@ public class ExpandableHListView extends HListView {
 			if( ( right < 0 ) || ( left > myRight ) ) continue;
 
 			// Get more expandable list-related info for this item
-			pos = mConnector.getUnflattenedPos( childFlPos );
+			state = getItemState( childFlPos );
+			type = ( state & ITEM_STATE_CHILD ) != 0 ? ExpandableHListPosition.CHILD : ExpandableHListPosition.GROUP;
 
 			// If this item type and the previous item type are different, then we need to change
 			// the left & right bounds
-			if( pos.position.type != lastItemType ) {
-				if( pos.position.type == ExpandableHListPosition.CHILD ) {
+			if( type != lastItemType ) {
+				if( type == ExpandableHListPosition.CHILD ) {
 					indicatorRect.top = item.getTop() + mChildIndicatorTop;
 					indicatorRect.bottom = item.getBottom() + mChildIndicatorTop;
 				}
@@ -333,11 +352,11 @@ public class ExpandableHListView extends HListView {
 					indicatorRect.bottom = item.getBottom() + mIndicatorTop;
 				}
 
-				lastItemType = pos.position.type;
+				lastItemType = type;
 			}
 
 			if( indicatorRect.top != indicatorRect.bottom ) {
-				if( pos.position.type == ExpandableHListPosition.CHILD ) {
+				if( type == ExpandableHListPosition.CHILD ) {
 					indicatorRect.left = left + mChildIndicatorLeft;
 					indicatorRect.right = right + mChildIndicatorLeft;
 				}
@@ -348,10 +367,10 @@ public class ExpandableHListView extends HListView {
 
 
 				// Get the indicator (with its state set to the item's state)
-				indicator = getIndicator( pos );
+				indicator = getIndicator( state );
 				if( indicator != null ) {
 
-					if( pos.position.type == ExpandableHListPosition.CHILD ) {
+					if( type == ExpandableHListPosition.CHILD ) {
 						Gravity.apply( mChildIndicatorGravity, mChildIndicatorWidth, mChildIndicatorHeight, indicatorRect, mTempRect );
 					}
 					else {
@@ -363,7 +382,6 @@ public class ExpandableHListView extends HListView {
 					indicator.draw( canvas );
 				}
 			}
-			pos.recycle();
 		}
 	}
 
@@ -371,24 +389,18 @@ public class ExpandableHListView extends HListView {
 	 * Gets the indicator for the item at the given position. If the indicator
 	 * is stateful, the state will be given to the indicator.
 	 *
-	 * @param pos The flat list position of the item whose indicator
-	 *            should be returned.
+	 * @param state The state of the item whose indicator should be returned,
+	 *              as returned by {@link #getItemState(int)}.
 	 * @return The indicator in the proper state.
 	 */
-	private Drawable getIndicator( ExpandableHListConnector.PositionMetadata pos ) {
+	private Drawable getIndicator( int state ) {
 		Drawable indicator;
 
-		if( pos.position.type == ExpandableHListPosition.GROUP ) {
+		if( ( state & ITEM_STATE_CHILD ) == 0 ) {
 			indicator = mGroupIndicator;
 
 			if( indicator != null && indicator.isStateful() ) {
-				// Empty check based on availability of data.  If the groupMetadata isn't null,
-				// we do a check on it. Otherwise, the group is collapsed so we consider it
-				// empty for performance reasons.
-				boolean isEmpty = ( pos.groupMetadata == null ) || ( pos.groupMetadata.lastChildFlPos == pos.groupMetadata.flPos );
-
-				final int stateSetIndex = ( pos.isExpanded() ? 1 : 0 ) | // Expanded?
-				                          ( isEmpty ? 2 : 0 ); // Empty?
+				final int stateSetIndex = state & ( ITEM_STATE_EXPANDED | ITEM_STATE_EMPTY );
 				indicator.setState( GROUP_STATE_SETS[stateSetIndex] );
 			}
 		}
@@ -397,7 +409,7 @@ public class ExpandableHListView extends HListView {
 
 			if( indicator != null && indicator.isStateful() ) {
 				// No need for a state sets array for the child since it only has two states
-				final int stateSet[] = pos.position.flatListPos == pos.groupMetadata.lastChildFlPos ? CHILD_LAST_STATE_SET : EMPTY_STATE_SET;
+				final int stateSet[] = ( state & ITEM_STATE_LAST_CHILD ) != 0 ? CHILD_LAST_STATE_SET : EMPTY_STATE_SET;
 				indicator.setState( stateSet );
 			}
 		}
@@ -405,6 +417,70 @@ public class ExpandableHListView extends HListView {
 		return indicator;
 	}
 
+	/**
+	 * Returns the state of the item at the given connector flat position, a
+	 * combination of ITEM_STATE_* flags. The state is looked up in the
+	 * connector only the first time the item is drawn after a data change.
+	 *
+	 * @param flatListPosition The group/child flat position of the item.
+	 */
+	private int getItemState( int flatListPosition ) {
+		int[] positions = mItemStatePositions;
+		if( positions.length < getChildCount() * 2 ) {
+			int size = Math.max( 16, positions.length );
+			while( size < getChildCount() * 2 ) {
+				size <<= 1;
+			}
+			positions = mItemStatePositions = new int[size];
+			mItemStates = new int[size];
+			Arrays.fill( positions, INVALID_POSITION );
+		}
+
+		final int slot = flatListPosition & ( positions.length - 1 );
+		if( positions[slot] == flatListPosition ) {
+			return mItemStates[slot];
+		}
+
+		ExpandableHListConnector.PositionMetadata pos = mConnector.getUnflattenedPos( flatListPosition );
+		int state = 0;
+		if( pos.position.type == ExpandableHListPosition.CHILD ) {
+			state |= ITEM_STATE_CHILD;
+			if( pos.position.flatListPos == pos.groupMetadata.lastChildFlPos ) {
+				state |= ITEM_STATE_LAST_CHILD;
+			}
+		}
+		else {
+			// Empty check based on availability of data.  If the groupMetadata isn't null,
+			// we do a check on it. Otherwise, the group is collapsed so we consider it
+			// empty for performance reasons.
+			if( ( pos.groupMetadata == null ) || ( pos.groupMetadata.lastChildFlPos == pos.groupMetadata.flPos ) ) {
+				state |= ITEM_STATE_EMPTY;
+			}
+		}
+		if( pos.isExpanded() ) {
+			state |= ITEM_STATE_EXPANDED;
+		}
+		pos.recycle();
+
+		positions[slot] = flatListPosition;
+		mItemStates[slot] = state;
+		return state;
+	}
+
+	/**
+	 * Drops the cached item states, the expanded groups or the adapter content
+	 * have changed.
+	 */
+	private void clearItemStates() {
+		Arrays.fill( mItemStatePositions, INVALID_POSITION );
+	}
+
+	@Override
+	protected void handleDataChanged() {
+		clearItemStates();
+		super.handleDataChanged();
+	}
+
 	/**
 	 * Sets the drawable that will be drawn adjacent to every child in the list. This will
 	 * be drawn using the same height as the normal divider ({@link #setDivider(Drawable)}) or
@@ -424,17 +500,15 @@ public class ExpandableHListView extends HListView {
 		// all items, then the item below it has to be a group)
 		if( flatListPosition >= 0 ) {
 			final int adjustedPosition = getFlatPositionForConnector( flatListPosition );
-			ExpandableHListConnector.PositionMetadata pos = mConnector.getUnflattenedPos( adjustedPosition );
+			final int state = getItemState( adjustedPosition );
 			// If this item is a child, or it is a non-empty group that is expanded
-			if( ( pos.position.type == ExpandableHListPosition.CHILD ) || ( pos.isExpanded() && pos.groupMetadata.lastChildFlPos != pos.groupMetadata.flPos ) ) {
+			if( ( state & ITEM_STATE_CHILD ) != 0 || ( state & ( ITEM_STATE_EXPANDED | ITEM_STATE_EMPTY ) ) == ITEM_STATE_EXPANDED ) {
 				// These are the cases where we draw the child divider
 				final Drawable divider = mChildDivider;
 				divider.setBounds( bounds );
 				divider.draw( canvas );
-				pos.recycle();
 				return;
 			}
-			pos.recycle();
 		}
 
 		// Otherwise draw the default divider
@@ -495,6 +569,8 @@ public class ExpandableHListView extends HListView {
 			mConnector = null;
 		}
 
+		clearItemStates();
+
 		// Link the ListView (superclass) to the expandable list data through the connector
 		super.setAdapter( mConnector );
 	}
@@ -678,6 +754,98 @@ public class ExpandableHListView extends HListView {
 		return retValue;
 	}
 
+	/**
+	 * Expands all the groups, up to the maximum number of expanded groups.
+	 * Unlike calling {@link #expandGroup(int)} for every group, the list is
+	 * laid out only once.
+	 *
+	 * @param keepAnchor Whether the leftmost visible group should keep its
+	 *                   position on screen.
+	 * @return The number of groups which have been expanded.
+	 */
+	public int expandAll( boolean keepAnchor ) {
+		final IntBitSet groups = new IntBitSet();
+		if( mAdapter != null ) {
+			groups.set( 0, mAdapter.getGroupCount() );
+		}
+		return setExpandedGroups( groups, keepAnchor );
+	}
+
+	/**
+	 * Collapses all the groups. Unlike calling {@link #collapseGroup(int)}
+	 * for every group, the list is laid out only once.
+	 *
+	 * @param keepAnchor Whether the leftmost visible group should keep its
+	 *                   position on screen.
+	 * @return The number of groups which have been collapsed.
+	 */
+	public int collapseAll( boolean keepAnchor ) {
+		return setExpandedGroups( new IntBitSet(), keepAnchor );
+	}
+
+	/**
+	 * Expands the given groups and collapses all the others. The expanded
+	 * groups are updated at once and the list is laid out only once, then
+	 * the {@link OnGroupExpandListener} and {@link OnGroupCollapseListener}
+	 * are invoked for every group which changed state.
+	 *
+	 * @param groups     The positions of the groups to expand.
+	 * @param keepAnchor Whether the leftmost visible group should keep its
+	 *                   position on screen.
+	 * @return The number of groups which have been expanded or collapsed.
+	 */
+	public int setExpandedGroups( IntBitSet groups, boolean keepAnchor ) {
+		if( mAdapter == null ) {
+			return 0;
+		}
+
+		int anchorGroup = - 1;
+		int anchorLeft = 0;
+		if( keepAnchor && getChildCount() > 0 ) {
+			final int firstPosition = getFirstVisiblePosition();
+			final int count = getChildCount();
+			for( int i = 0; i < count; i++ ) {
+				if( ! isHeaderOrFooterPosition( firstPosition + i ) ) {
+					final long packedPos = mConnector.getUnflattenedPackedPos( getFlatPositionForConnector( firstPosition + i ) );
+					anchorGroup = getPackedPositionGroup( packedPos );
+					anchorLeft = getChildAt( i ).getLeft();
+					break;
+				}
+			}
+		}
+
+		final IntBitSet changed = new IntBitSet();
+		final int changedCount = mConnector.setExpandedGroups( groups, changed );
+		if( changedCount == 0 ) {
+			return 0;
+		}
+
+		if( anchorGroup >= 0 ) {
+			ExpandableHListPosition elGroupPos = ExpandableHListPosition.obtainGroupPosition( anchorGroup );
+			ExpandableHListConnector.PositionMetadata pm = mConnector.getFlattenedPos( elGroupPos );
+			elGroupPos.recycle();
+			if( pm != null ) {
+				setSelectionFromLeft( getAbsoluteFlatPosition( pm.position.flatListPos ), anchorLeft );
+				pm.recycle();
+			}
+		}
+
+		if( mOnGroupExpandListener != null || mOnGroupCollapseListener != null ) {
+			for( int i = changed.nextSetBit( 0 ); i >= 0; i = changed.nextSetBit( i + 1 ) ) {
+				if( mConnector.isGroupExpanded( i ) ) {
+					if( mOnGroupExpandListener != null ) {
+						mOnGroupExpandListener.onGroupExpand( i );
+					}
+				}
+				else if( mOnGroupCollapseListener != null ) {
+					mOnGroupCollapseListener.onGroupCollapse( i );
+				}
+			}
+		}
+
+		return changedCount;
+	}
+
 	/** Used for being notified when a group is collapsed */
 	public interface OnGroupCollapseListener {
 		/**
@@ -786,10 +954,7 @@ public class ExpandableHListView extends HListView {
 		}
 
 		final int adjustedPosition = getFlatPositionForConnector( flatListPosition );
-		ExpandableHListConnector.PositionMetadata pm = mConnector.getUnflattenedPos( adjustedPosition );
-		long packedPos = pm.position.getPackedPosition();
-		pm.recycle();
-		return packedPos;
+		return mConnector.getUnflattenedPackedPos( adjustedPosition );
 	}
 
 	/**
@@ -914,6 +1079,63 @@ public class ExpandableHListView extends HListView {
 		return mConnector.isGroupExpanded( groupPosition );
 	}
 
+	/**
+	 * Sets how many of the position objects used internally to translate
+	 * flat list positions are kept for reuse. The pools are shared by all
+	 * the expandable lists and only used from the UI thread, 0 disables
+	 * pooling. Must be called from the UI thread.
+	 * <p>
+	 * The adapter lookups done while laying out and scrolling (views, ids,
+	 * types and enabled state of the items) don't use these objects: they
+	 * translate flat positions to packed long positions. Applications can do
+	 * the same without any allocation with {@link #getExpandableListPosition(int)},
+	 * {@link #getPackedPositionForGroup(int)} and
+	 * {@link #getPackedPositionForChild(int, int)}, the pools are only used by
+	 * expanding, collapsing, clicks and context menus.
+	 *
+	 * @param size The maximum number of pooled objects of each kind.
+	 */
+	public static void setPositionPoolSize( int size ) {
+		ExpandableHListPosition.sPool.setMaxSize( size );
+		ExpandableHListConnector.PositionMetadata.sPool.setMaxSize( size );
+	}
+
+	/**
+	 * @return The maximum number of pooled position objects of each kind,
+	 * the largest of the pool sizes if they differ.
+	 * @see #setPositionPoolSize(int)
+	 */
+	public static int getPositionPoolSize() {
+		return Math.max( ExpandableHListPosition.sPool.getMaxSize(), ExpandableHListConnector.PositionMetadata.sPool.getMaxSize() );
+	}
+
+	/**
+	 * @return How many position objects have been reused from the pools
+	 * since the last {@link #resetPositionPoolCounters()}.
+	 */
+	public static int getPositionPoolHitCount() {
+		return ExpandableHListPosition.sPool.getHitCount() + ExpandableHListConnector.PositionMetadata.sPool.getHitCount();
+	}
+
+	/**
+	 * @return How many position objects had to be allocated on the UI thread
+	 * because the pools were empty, since the last {@link #resetPositionPoolCounters()}.
+	 */
+	public static int getPositionPoolMissCount() {
+		return ExpandableHListPosition.sPool.getMissCount() + ExpandableHListConnector.PositionMetadata.sPool.getMissCount();
+	}
+
+	/**
+	 * Clears the hit and miss counters of the position pools.
+	 *
+	 * @see #getPositionPoolHitCount()
+	 * @see #getPositionPoolMissCount()
+	 */
+	public static void resetPositionPoolCounters() {
+		ExpandableHListPosition.sPool.resetCounters();
+		ExpandableHListConnector.PositionMetadata.sPool.resetCounters();
+	}
+
 	/**
 	 * Gets the type of a packed position. See
 	 * {@link #getPackedPositionForChild(int, int)}.
@@ -0,0 +1,80 @@
+package it.sephiroth.android.library.widget;
+
+import android.database.DataSetObserver;
+import android.widget.BaseExpandableListAdapter;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link BaseExpandableListAdapter} which can notify that the children of some groups changed using
+ * {@link #notifyGroupChanged(int)} and {@link #notifyGroupRangeChanged(int, int)}.<br />
+ * When some of the registered {@link DataSetObserver}s do not understand these notifications, for instance if the same adapter
+ * is also used by an {@link android.widget.ExpandableListView}, every notification falls back to {@link #notifyDataSetChanged()}.
+ */
+public abstract class GroupChangeAdapter extends BaseExpandableListAdapter implements GroupChangeNotifier {
+
+	private final ArrayList<GroupChangeObserver> mGroupChangeObservers = new ArrayList<GroupChangeObserver>();
+
+	/** registered data set observers which are not group change observers too */
+	private final ArrayList<DataSetObserver> mPlainDataSetObservers = new ArrayList<DataSetObserver>();
+
+	@Override
+	public void registerDataSetObserver( DataSetObserver observer ) {
+		super.registerDataSetObserver( observer );
+		if ( !( observer instanceof GroupChangeObserver ) ) {
+			mPlainDataSetObservers.add( observer );
+		}
+	}
+
+	@Override
+	public void unregisterDataSetObserver( DataSetObserver observer ) {
+		super.unregisterDataSetObserver( observer );
+		if ( !( observer instanceof GroupChangeObserver ) ) {
+			mPlainDataSetObservers.remove( observer );
+		}
+	}
+
+	@Override
+	public void registerGroupChangeObserver( GroupChangeObserver observer ) {
+		if ( observer == null ) {
+			throw new IllegalArgumentException( "The observer is null." );
+		}
+		if ( mGroupChangeObservers.contains( observer ) ) {
+			throw new IllegalStateException( "Observer " + observer + " is already registered." );
+		}
+		mGroupChangeObservers.add( observer );
+	}
+
+	@Override
+	public void unregisterGroupChangeObserver( GroupChangeObserver observer ) {
+		mGroupChangeObservers.remove( observer );
+	}
+
+	/**
+	 * Notifies that the children of the group at <var>groupPosition</var> changed.
+	 */
+	public final void notifyGroupChanged( int groupPosition ) {
+		notifyGroupRangeChanged( groupPosition, 1 );
+	}
+
+	/**
+	 * Notifies that the children of <var>groupCount</var> groups starting at <var>groupStart</var> changed. The groups
+	 * themselves must not have been added, removed or moved, use {@link #notifyDataSetChanged()} for that.
+	 */
+	public final void notifyGroupRangeChanged( int groupStart, int groupCount ) {
+		if ( !canNotifyGroupChanges() ) {
+			notifyDataSetChanged();
+			return;
+		}
+		for ( int i = mGroupChangeObservers.size() - 1; i >= 0; i-- ) {
+			mGroupChangeObservers.get( i ).onGroupRangeChanged( groupStart, groupCount );
+		}
+	}
+
+	/**
+	 * Group notifications can only be used if every data set observer is also a group change observer
+	 */
+	private boolean canNotifyGroupChanges() {
+		return mPlainDataSetObservers.isEmpty();
+	}
+}
@@ -0,0 +1,15 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Optional interface for an {@link android.widget.ExpandableListAdapter} able to notify which groups have changed. When the
+ * adapter of an {@link ExpandableHListView} implements this interface only the children count of the changed groups is queried
+ * again, instead of the children count of every expanded group and the position of every group.
+ *
+ * @see GroupChangeAdapter
+ */
+public interface GroupChangeNotifier {
+
+	void registerGroupChangeObserver( GroupChangeObserver observer );
+
+	void unregisterGroupChangeObserver( GroupChangeObserver observer );
+}
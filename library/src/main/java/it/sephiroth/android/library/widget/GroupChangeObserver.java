@@ -0,0 +1,18 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Receives notifications about the groups of an expandable adapter whose children have changed, instead of a whole data set
+ * change.<br />
+ * Groups are neither added, removed nor moved by these notifications, and their ids stay the same.
+ *
+ * @see GroupChangeNotifier
+ * @see GroupChangeAdapter
+ */
+public interface GroupChangeObserver {
+
+	/**
+	 * The children of <var>groupCount</var> groups starting at <var>groupStart</var> have changed, their number may have
+	 * changed as well.
+	 */
+	void onGroupRangeChanged( int groupStart, int groupCount );
+}
@@ -0,0 +1,126 @@
+package it.sephiroth.android.library.widget;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed (Fenwick) tree over the groups of an expandable list, where every group accounts for itself plus its visible
+ * children (none if the group is collapsed).<br />
+ * The flat list position of a group and the group found at a flat list position are computed in O(log n), expanding or
+ * collapsing a group is an O(log n) update, and the whole index can be built again in O(n).
+ */
+class GroupFlatPositionIndex {
+
+	/** visible children of every group, 0 for the collapsed groups */
+	private int[] mChildCounts = new int[0];
+
+	/** 1-based fenwick tree of ( 1 + visible children ) of every group */
+	private int[] mTree = new int[1];
+
+	private int mGroupCount;
+	private int mTotalChildCount;
+
+	/**
+	 * Resizes the index to <var>groupCount</var> groups, all collapsed
+	 */
+	void reset( int groupCount ) {
+		if ( mChildCounts.length < groupCount ) {
+			mChildCounts = new int[groupCount];
+			mTree = new int[groupCount + 1];
+		} else {
+			Arrays.fill( mChildCounts, 0, groupCount, 0 );
+		}
+		mGroupCount = groupCount;
+		mTotalChildCount = 0;
+		for ( int i = 1; i <= groupCount; i++ ) {
+			// every node covers ( i & -i ) groups with no children
+			mTree[i] = i & -i;
+		}
+	}
+
+	/**
+	 * Sets the visible children of a group without updating the tree, {@link #build()} must be called once all the counts have
+	 * been set. Used to expand or collapse many groups at once in O(n).
+	 */
+	void putChildCount( int group, int count ) {
+		mChildCounts[group] = count;
+	}
+
+	/**
+	 * Builds the tree from the counts set with {@link #putChildCount(int, int)}
+	 */
+	void build() {
+		final int n = mGroupCount;
+		final int[] tree = mTree;
+		int total = 0;
+		for ( int i = 1; i <= n; i++ ) {
+			total += mChildCounts[i - 1];
+			tree[i] = 1 + mChildCounts[i - 1];
+		}
+		for ( int i = 1; i <= n; i++ ) {
+			final int parent = i + ( i & -i );
+			if ( parent <= n ) {
+				tree[parent] += tree[i];
+			}
+		}
+		mTotalChildCount = total;
+	}
+
+	/**
+	 * Sets the number of visible children of <var>group</var>, 0 when it is collapsed
+	 */
+	void setChildCount( int group, int count ) {
+		final int delta = count - mChildCounts[group];
+		if ( delta == 0 ) {
+			return;
+		}
+		mChildCounts[group] = count;
+		mTotalChildCount += delta;
+		for ( int i = group + 1; i <= mGroupCount; i += i & -i ) {
+			mTree[i] += delta;
+		}
+	}
+
+	int getChildCount( int group ) {
+		return mChildCounts[group];
+	}
+
+	int getGroupCount() {
+		return mGroupCount;
+	}
+
+	/**
+	 * @return the number of visible children of all the groups
+	 */
+	int getTotalChildCount() {
+		return mTotalChildCount;
+	}
+
+	/**
+	 * Returns the flat list position of <var>group</var>. Passing {@link #getGroupCount()} returns the size of the flat list.
+	 */
+	int getFlatPosition( int group ) {
+		int sum = 0;
+		for ( int i = Math.min( group, mGroupCount ); i > 0; i -= i & -i ) {
+			sum += mTree[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the group at <var>flPos</var>, or containing the child at <var>flPos</var>. Positions past the end of the flat list
+	 * are accounted as collapsed groups following the last one.
+	 */
+	int getGroup( int flPos ) {
+		int group = 0;
+		int remaining = flPos;
+		for ( int step = Integer.highestOneBit( Math.max( 1, mGroupCount ) ); step > 0; step >>= 1 ) {
+			final int next = group + step;
+			if ( next <= mGroupCount && mTree[next] <= remaining ) {
+				group = next;
+				remaining -= mTree[next];
+			}
+		}
+		// "group" groups end at or before flPos, and the remaining positions past the end are collapsed groups
+		return group < mGroupCount ? group : mGroupCount + remaining;
+	}
+}
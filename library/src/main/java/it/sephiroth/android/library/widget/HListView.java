@@ -486,6 +486,7 @@ public class HListView extends AbsHListView {
 
 			mDataSetObserver = new AdapterDataSetObserver();
 			mAdapter.registerDataSetObserver( mDataSetObserver );
+			registerItemRangeObserver();
 
 			mRecycler.setViewTypeCount( mAdapter.getViewTypeCount() );
 
@@ -1111,6 +1112,44 @@ public class HListView extends AbsHListView {
 		super.onSizeChanged( w, h, oldw, oldh );
 	}
 
+	@Override
+	boolean measurePrefetchedView( View child, int position ) {
+		AbsHListView.LayoutParams p = (AbsHListView.LayoutParams) child.getLayoutParams();
+		if ( p == null ) {
+			p = (AbsHListView.LayoutParams) generateDefaultLayoutParams();
+			child.setLayoutParams( p );
+		}
+		p.viewType = mAdapter.getItemViewType( position );
+
+		int childHeightSpec = ViewGroup.getChildMeasureSpec( mHeightMeasureSpec, mListPadding.top + mListPadding.bottom, p.height );
+		int lpWidth = p.width;
+		int childWidthSpec;
+		if ( lpWidth > 0 ) {
+			childWidthSpec = MeasureSpec.makeMeasureSpec( lpWidth, MeasureSpec.EXACTLY );
+		} else {
+			childWidthSpec = MeasureSpec.makeMeasureSpec( 0, MeasureSpec.UNSPECIFIED );
+		}
+		child.measure( childWidthSpec, childHeightSpec );
+
+		// setupChild will only offset the view, give it its final size now
+		final int w = child.getMeasuredWidth();
+		final int h = child.getMeasuredHeight();
+		child.layout( 0, 0, w, h );
+
+		recordItemWidth( position, w );
+		return true;
+	}
+
+	@Override
+	int getItemRangeOffset() {
+		return getHeaderViewsCount();
+	}
+
+	@Override
+	int getItemSpacing() {
+		return ( ( mDividerWidth > 0 ) && mDivider != null ) ? mDividerWidth : 0;
+	}
+
 	@TargetApi (11)
 	@Override
 	protected void onMeasure( int widthMeasureSpec, int heightMeasureSpec ) {
@@ -1127,6 +1166,13 @@ public class HListView extends AbsHListView {
 		int childState = 0;
 
 		mItemCount = mAdapter == null ? 0 : mAdapter.getCount();
+
+		setItemHeightMeasureSpec( heightMeasureSpec );
+
+		if ( heightMeasureSpec != mHeightMeasureSpec ) {
+			// prefetched views have been measured with the old spec
+			mRecycler.clearPrefetchedViews();
+		}
 		
 		if ( mItemCount > 0 && ( widthMode == MeasureSpec.UNSPECIFIED || heightMode == MeasureSpec.UNSPECIFIED ) ) {
 			if( LOG_ENABLED ) {
@@ -1265,21 +1311,28 @@ public class HListView extends AbsHListView {
 		final boolean[] isScrap = mIsScrap;
 
 		for ( i = startPosition; i <= endPosition; ++i ) {
-			child = obtainView( i, isScrap );
+			int childWidth = getCachedItemWidth( i );
 
-			measureScrapChildWidth( child, i, heightMeasureSpec );
+			if ( childWidth == ItemWidthCache.UNKNOWN ) {
+				child = obtainView( i, isScrap );
+
+				measureScrapChildWidth( child, i, heightMeasureSpec );
+
+				// Recycle the view before we possibly return from the method
+				if ( recyle && recycleBin.shouldRecycleViewType( ( (LayoutParams) child.getLayoutParams() ).viewType ) ) {
+					recycleBin.addScrapView( child, -1 );
+				}
+
+				childWidth = child.getMeasuredWidth();
+				recordItemWidth( i, childWidth );
+			}
 
 			if ( i > 0 ) {
 				// Count the divider for all but one child
 				returnedWidth += dividerWidth;
 			}
 
-			// Recycle the view before we possibly return from the method
-			if ( recyle && recycleBin.shouldRecycleViewType( ( (LayoutParams) child.getLayoutParams() ).viewType ) ) {
-				recycleBin.addScrapView( child, -1 );
-			}
-
-			returnedWidth += child.getMeasuredWidth();
+			returnedWidth += childWidth;
 
 			if ( returnedWidth >= maxWidth ) {
 				// We went over, figure out which height to return. If returnedHeight > maxHeight,
@@ -1546,6 +1599,10 @@ public class HListView extends AbsHListView {
 				return;
 			}
 
+			if ( !mPendingItemRangeOps.isEmpty() ) {
+				applyPendingItemRangeOps();
+			}
+
 			int childrenLeft = mListPadding.left;
 			int childrenRight = getRight() - getLeft() - mListPadding.right;
 
@@ -1627,7 +1684,10 @@ public class HListView extends AbsHListView {
 
 			// Don't put header or footer views into the Recycler. Those are
 			// already cached in mHeaderViews;
-			if ( dataChanged ) {
+			if ( dataChanged && mAdapterHasStableIds ) {
+				// children will be given back to the adapter for the same item ids
+				recycleBin.fillActiveViewsById( childCount, firstPosition );
+			} else if ( dataChanged ) {
 				for ( int i = 0; i < childCount; i++ ) {
 					recycleBin.addScrapView( getChildAt( i ), firstPosition + i );
 				}
@@ -1876,7 +1936,8 @@ public class HListView extends AbsHListView {
 			child = mRecycler.getActiveView( position );
 			if ( child != null ) {
 				// Found it -- we're using an existing child
-				// This just needs to be positioned
+				// This just needs to be positioned, and updated if its item changed
+				bindPendingPayloads( child, position );
 				setupChild( child, position, x, flow, childrenTop, selected, true );
 
 				return child;
@@ -1910,14 +1971,25 @@ public class HListView extends AbsHListView {
 	 * @param recycled
 	 *           Has this view been pulled from the recycle bin? If so it does not need to be remeasured.
 	 */
-	@TargetApi (11)
 	private void setupChild( View child, int position, int x, boolean flowDown, int childrenTop, boolean selected, boolean recycled ) {
+		final ListFrameMetrics metrics = mFrameMetrics;
+		if ( metrics == null ) {
+			doSetupChild( child, position, x, flowDown, childrenTop, selected, recycled );
+			return;
+		}
+
+		final long start = System.nanoTime();
+		doSetupChild( child, position, x, flowDown, childrenTop, selected, recycled );
+		metrics.addTiming( ListFrameMetrics.SETUP_CHILD, start );
+	}
+
+	@TargetApi (11)
+	private void doSetupChild( View child, int position, int x, boolean flowDown, int childrenTop, boolean selected, boolean recycled ) {
 		final boolean isSelected = selected && shouldShowSelector();
 		final boolean updateChildSelected = isSelected != child.isSelected();
 		final int mode = mTouchMode;
 		final boolean isPressed = mode > TOUCH_MODE_DOWN && mode < TOUCH_MODE_SCROLL && mMotionPosition == position;
 		final boolean updateChildPressed = isPressed != child.isPressed();
-		final boolean needToMeasure = !recycled || updateChildSelected || child.isLayoutRequested();
 
 		// Respect layout params that are already in the view. Otherwise make some up...
 		// noinspection unchecked
@@ -1927,6 +1999,12 @@ public class HListView extends AbsHListView {
 		}
 		p.viewType = mAdapter.getItemViewType( position );
 
+		// a view updated with payloads which didn't change its size can keep its measure and layout
+		final boolean sizeUnchanged = recycled && p.sizeUnchanged;
+		p.sizeUnchanged = false;
+		final boolean needToMeasure = !recycled || updateChildSelected || ( child.isLayoutRequested() && !sizeUnchanged );
+		boolean needToLayout = needToMeasure;
+
 		if ( ( recycled && !p.forceAdd ) || ( p.recycledHeaderFooter && p.viewType == AdapterView.ITEM_VIEW_TYPE_HEADER_OR_FOOTER ) ) {
 			attachViewToParent( child, flowDown ? -1 : 0, p );
 		} else {
@@ -1945,11 +2023,11 @@ public class HListView extends AbsHListView {
 			child.setPressed( isPressed );
 		}
 
-		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mCheckStates != null ) {
+		if ( mChoiceMode != ListView.CHOICE_MODE_NONE ) {
 			if ( child instanceof Checkable ) {
-				( (Checkable) child ).setChecked( mCheckStates.get( position, false ) );
+				( (Checkable) child ).setChecked( isItemChecked( position ) );
 			} else if ( android.os.Build.VERSION.SDK_INT >= 11 ) {
-				child.setActivated( mCheckStates.get( position, false ) );
+				child.setActivated( isItemChecked( position ) );
 			}
 		}
 
@@ -1963,15 +2041,23 @@ public class HListView extends AbsHListView {
 				childWidthSpec = MeasureSpec.makeMeasureSpec( 0, MeasureSpec.UNSPECIFIED );
 			}
 			child.measure( childWidthSpec, childHeightSpec );
+		} else if ( sizeUnchanged && child.isLayoutRequested() ) {
+			// the adapter only promises the item size: descendants which requested a layout during the payload bind still need
+			// one, measuring at the same size is cheap and clears the layout requests of the whole subtree
+			child.measure( MeasureSpec.makeMeasureSpec( child.getMeasuredWidth(), MeasureSpec.EXACTLY ),
+					MeasureSpec.makeMeasureSpec( child.getMeasuredHeight(), MeasureSpec.EXACTLY ) );
+			needToLayout = true;
 		} else {
 			cleanupLayoutState( child );
 		}
 
 		final int w = child.getMeasuredWidth();
 		final int h = child.getMeasuredHeight();
+
+		recordItemWidth( position, w );
 		final int childLeft = flowDown ? x : x - w;
 
-		if ( needToMeasure ) {
+		if ( needToLayout ) {
 			final int childBottom = childrenTop + h;
 			final int childRight = childLeft + w;
 			child.layout( childLeft, childrenTop, childRight, childBottom );
@@ -2178,7 +2264,7 @@ public class HListView extends AbsHListView {
 			return false;
 		}
 
-		if ( mDataChanged ) {
+		if ( hasPendingDataChange() ) {
 			layoutChildren();
 		}
 		
@@ -3591,29 +3677,16 @@ public class HListView extends AbsHListView {
 
 		// Old behavior was buggy, but would sort of work for adapters without stable IDs.
 		// Fall back to it to support legacy apps.
-		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mCheckStates != null && mAdapter != null ) {
-			final SparseArrayCompat<Boolean> states = mCheckStates;
+		if ( mChoiceMode != ListView.CHOICE_MODE_NONE && mAdapter != null ) {
+			final SparseArrayCompat<Boolean> states = getCheckedItemPositions();
 			final int count = states.size();
 			final long[] ids = new long[count];
 			final ListAdapter adapter = mAdapter;
 
-			int checkedCount = 0;
 			for ( int i = 0; i < count; i++ ) {
-				if ( states.valueAt( i ) ) {
-					ids[checkedCount++] = adapter.getItemId( states.keyAt( i ) );
-				}
-			}
-
-			// Trim array if needed. mCheckStates may contain false values
-			// resulting in checkedCount being smaller than count.
-			if ( checkedCount == count ) {
-				return ids;
-			} else {
-				final long[] result = new long[checkedCount];
-				System.arraycopy( ids, 0, result, 0, checkedCount );
-
-				return result;
+				ids[i] = adapter.getItemId( states.keyAt( i ) );
 			}
+			return ids;
 		}
 		return new long[0];
 	}
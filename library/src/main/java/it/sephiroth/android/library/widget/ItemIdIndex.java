@@ -0,0 +1,66 @@
+package it.sephiroth.android.library.widget;
+
+import android.widget.Adapter;
+import android.widget.ExpandableListAdapter;
+
+import it.sephiroth.android.library.util.LongIntHashMap;
+
+/**
+ * Map from the ids of an adapter to their positions, built in a single pass the first time it's needed after a data set change.
+ * <br />
+ * Used when the adapter has stable ids but doesn't implement {@link ItemIdLookup}. If several items share an id the first one
+ * is kept.
+ */
+class ItemIdIndex {
+
+	private final LongIntHashMap mPositions = new LongIntHashMap();
+	private boolean mValid;
+
+	/**
+	 * The adapter content changed, the index will be built again on the next lookup
+	 */
+	void invalidate() {
+		if ( mValid ) {
+			mValid = false;
+			mPositions.clear();
+		}
+	}
+
+	boolean isValid() {
+		return mValid;
+	}
+
+	/**
+	 * @return the position of the item with the given id in <var>adapter</var>, or {@link AdapterView#INVALID_POSITION}
+	 */
+	int getPosition( Adapter adapter, long id ) {
+		if ( !mValid ) {
+			final int count = adapter.getCount();
+			for ( int i = 0; i < count; i++ ) {
+				put( adapter.getItemId( i ), i );
+			}
+			mValid = true;
+		}
+		return mPositions.get( id, AdapterView.INVALID_POSITION );
+	}
+
+	/**
+	 * @return the position of the group with the given id in <var>adapter</var>, or {@link AdapterView#INVALID_POSITION}
+	 */
+	int getGroupPosition( ExpandableListAdapter adapter, long groupId ) {
+		if ( !mValid ) {
+			final int count = adapter.getGroupCount();
+			for ( int i = 0; i < count; i++ ) {
+				put( adapter.getGroupId( i ), i );
+			}
+			mValid = true;
+		}
+		return mPositions.get( groupId, AdapterView.INVALID_POSITION );
+	}
+
+	private void put( long id, int position ) {
+		if ( id != AdapterView.INVALID_COL_ID && !mPositions.containsKey( id ) ) {
+			mPositions.put( id, position );
+		}
+	}
+}
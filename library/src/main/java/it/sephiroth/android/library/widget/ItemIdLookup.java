@@ -0,0 +1,19 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Optional interface for an adapter with stable ids which can find the position of an item from its id in constant time, for
+ * instance because it already keeps its items in a map.<br />
+ * The lists use it to find the items again after a data set change (the selection, the first visible item, the checked items)
+ * instead of searching around their last known position, or indexing all the ids themselves.<br />
+ * An {@link android.widget.ExpandableListAdapter} implementing this interface must return the group position of a group id.
+ */
+public interface ItemIdLookup {
+
+	/**
+	 * @param id
+	 *           the item id, as returned by {@link android.widget.Adapter#getItemId(int)}
+	 * @return the position of the item with the given id, or {@link android.widget.AdapterView#INVALID_POSITION} if there is no
+	 *         such item
+	 */
+	int getPositionForItemId( long id );
+}
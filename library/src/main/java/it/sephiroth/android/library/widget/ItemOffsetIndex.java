@@ -0,0 +1,162 @@
+package it.sephiroth.android.library.widget;
+
+import java.util.Arrays;
+
+/**
+ * Binary indexed (Fenwick) tree over the widths of the adapter items.<br />
+ * Items which have not been measured yet are accounted with the average width of the measured ones, so that the offset of any
+ * position, and the position found at any offset, can be computed in O(log n) without laying out the list.<br />
+ * Offsets are relative to the left edge of the first item and include the spacing between items, but not the list padding.
+ */
+class ItemOffsetIndex {
+
+	/** measured width of every item, 0 when not measured */
+	private int[] mWidths = new int[0];
+
+	/** 1-based fenwick tree of the measured widths */
+	private long[] mWidthTree = new long[1];
+
+	/** 1-based fenwick tree of the number of measured items */
+	private int[] mCountTree = new int[1];
+
+	private int mCount;
+	private int mSpacing;
+	private long mKnownWidth;
+	private int mKnownCount;
+
+	/**
+	 * Resizes the index to <var>count</var> items. All the measured widths are dropped if the size changes.
+	 */
+	void setCount( int count ) {
+		if ( count != mCount ) {
+			mCount = count;
+			mWidths = new int[count];
+			mWidthTree = new long[count + 1];
+			mCountTree = new int[count + 1];
+			mKnownWidth = 0;
+			mKnownCount = 0;
+		}
+	}
+
+	int getCount() {
+		return mCount;
+	}
+
+	/**
+	 * Space between two consecutive items (the divider width)
+	 */
+	void setSpacing( int spacing ) {
+		mSpacing = spacing;
+	}
+
+	/**
+	 * @return the number of items whose width is known
+	 */
+	int getKnownCount() {
+		return mKnownCount;
+	}
+
+	/**
+	 * Records the measured width of the item at <var>position</var>
+	 */
+	void setWidth( int position, int width ) {
+		if ( position < 0 || position >= mCount || width < 0 ) {
+			return;
+		}
+
+		final int old = mWidths[position];
+		final boolean wasKnown = old > 0;
+		final boolean isKnown = width > 0;
+
+		if ( old == width ) {
+			return;
+		}
+
+		mWidths[position] = width;
+
+		final int widthDelta = width - old;
+		final int countDelta = ( isKnown ? 1 : 0 ) - ( wasKnown ? 1 : 0 );
+		mKnownWidth += widthDelta;
+		mKnownCount += countDelta;
+
+		for ( int i = position + 1; i <= mCount; i += i & -i ) {
+			mWidthTree[i] += widthDelta;
+			mCountTree[i] += countDelta;
+		}
+	}
+
+	/**
+	 * Drops all the measured widths, keeping the size
+	 */
+	void clear() {
+		Arrays.fill( mWidths, 0 );
+		Arrays.fill( mWidthTree, 0 );
+		Arrays.fill( mCountTree, 0 );
+		mKnownWidth = 0;
+		mKnownCount = 0;
+	}
+
+	/**
+	 * @return the average width of the measured items, used for the ones not measured yet
+	 */
+	int getEstimatedWidth() {
+		return mKnownCount > 0 ? (int) ( mKnownWidth / mKnownCount ) : 0;
+	}
+
+	/**
+	 * Returns the distance between the left edge of the first item and the left edge of the item at <var>position</var>.
+	 * Passing {@link #getCount()} returns the offset of the right edge of the last item, plus one spacing.
+	 */
+	long getOffset( int position ) {
+		position = Math.max( 0, Math.min( mCount, position ) );
+
+		long width = 0;
+		int count = 0;
+		for ( int i = position; i > 0; i -= i & -i ) {
+			width += mWidthTree[i];
+			count += mCountTree[i];
+		}
+		return width + (long) ( position - count ) * getEstimatedWidth() + (long) position * mSpacing;
+	}
+
+	/**
+	 * @return the total width of all the items, spacing included
+	 */
+	long getTotalWidth() {
+		if ( mCount == 0 ) {
+			return 0;
+		}
+		return mKnownWidth + (long) ( mCount - mKnownCount ) * getEstimatedWidth() + (long) ( mCount - 1 ) * mSpacing;
+	}
+
+	/**
+	 * Returns the position of the item found at <var>offset</var> pixels from the left edge of the first item, or -1 if the
+	 * index is empty.
+	 */
+	int getPosition( long offset ) {
+		if ( mCount == 0 ) {
+			return -1;
+		}
+		if ( offset <= 0 ) {
+			return 0;
+		}
+
+		final int estimate = getEstimatedWidth();
+		int step = Integer.highestOneBit( mCount );
+		int position = 0;
+		long accumulated = 0;
+
+		for ( ; step > 0; step >>= 1 ) {
+			final int next = position + step;
+			if ( next <= mCount ) {
+				// the node "next" covers exactly "step" items
+				final long value = mWidthTree[next] + (long) ( step - mCountTree[next] ) * estimate + (long) step * mSpacing;
+				if ( accumulated + value <= offset ) {
+					position = next;
+					accumulated += value;
+				}
+			}
+		}
+		return Math.min( position, mCount - 1 );
+	}
+}
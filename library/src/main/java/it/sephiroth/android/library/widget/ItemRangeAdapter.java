@@ -0,0 +1,129 @@
+package it.sephiroth.android.library.widget;
+
+import android.database.DataSetObserver;
+import android.widget.BaseAdapter;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link BaseAdapter} which can notify fine grained changes using {@link #notifyItemRangeChanged(int, int)},
+ * {@link #notifyItemRangeInserted(int, int)}, {@link #notifyItemRangeRemoved(int, int)} and {@link #notifyItemMoved(int, int)}.
+ * <br />
+ * When some of the registered {@link DataSetObserver}s do not understand the fine grained notifications, for instance if the
+ * same adapter is also used by a {@link android.widget.ListView}, every notification falls back to
+ * {@link #notifyDataSetChanged()}.
+ */
+public abstract class ItemRangeAdapter extends BaseAdapter implements ItemRangeNotifier {
+
+	private final ArrayList<ItemRangeObserver> mItemRangeObservers = new ArrayList<ItemRangeObserver>();
+
+	/** registered data set observers which are not item range observers too */
+	private final ArrayList<DataSetObserver> mPlainDataSetObservers = new ArrayList<DataSetObserver>();
+
+	@Override
+	public void registerDataSetObserver( DataSetObserver observer ) {
+		super.registerDataSetObserver( observer );
+		if ( !( observer instanceof ItemRangeObserver ) ) {
+			mPlainDataSetObservers.add( observer );
+		}
+	}
+
+	@Override
+	public void unregisterDataSetObserver( DataSetObserver observer ) {
+		super.unregisterDataSetObserver( observer );
+		if ( !( observer instanceof ItemRangeObserver ) ) {
+			mPlainDataSetObservers.remove( observer );
+		}
+	}
+
+	@Override
+	public void registerItemRangeObserver( ItemRangeObserver observer ) {
+		if ( observer == null ) {
+			throw new IllegalArgumentException( "The observer is null." );
+		}
+		if ( mItemRangeObservers.contains( observer ) ) {
+			throw new IllegalStateException( "Observer " + observer + " is already registered." );
+		}
+		mItemRangeObservers.add( observer );
+	}
+
+	@Override
+	public void unregisterItemRangeObserver( ItemRangeObserver observer ) {
+		mItemRangeObservers.remove( observer );
+	}
+
+	public final void notifyItemChanged( int position ) {
+		notifyItemRangeChanged( position, 1, null );
+	}
+
+	/**
+	 * Notifies that the item at <var>position</var> changed. If the adapter implements {@link PayloadBindingAdapter} the view on
+	 * screen is updated with <var>payload</var> rather than bound again.
+	 */
+	public final void notifyItemChanged( int position, Object payload ) {
+		notifyItemRangeChanged( position, 1, payload );
+	}
+
+	public final void notifyItemRangeChanged( int positionStart, int itemCount ) {
+		notifyItemRangeChanged( positionStart, itemCount, null );
+	}
+
+	/**
+	 * Notifies that <var>itemCount</var> items starting at <var>positionStart</var> changed. If the adapter implements
+	 * {@link PayloadBindingAdapter} the views on screen are updated with <var>payload</var> rather than bound again.
+	 */
+	public final void notifyItemRangeChanged( int positionStart, int itemCount, Object payload ) {
+		if ( !canNotifyItemRanges() ) {
+			notifyDataSetChanged();
+			return;
+		}
+		for ( int i = mItemRangeObservers.size() - 1; i >= 0; i-- ) {
+			mItemRangeObservers.get( i ).onItemRangeChanged( positionStart, itemCount, payload );
+		}
+	}
+
+	public final void notifyItemInserted( int position ) {
+		notifyItemRangeInserted( position, 1 );
+	}
+
+	public final void notifyItemRangeInserted( int positionStart, int itemCount ) {
+		if ( !canNotifyItemRanges() ) {
+			notifyDataSetChanged();
+			return;
+		}
+		for ( int i = mItemRangeObservers.size() - 1; i >= 0; i-- ) {
+			mItemRangeObservers.get( i ).onItemRangeInserted( positionStart, itemCount );
+		}
+	}
+
+	public final void notifyItemRemoved( int position ) {
+		notifyItemRangeRemoved( position, 1 );
+	}
+
+	public final void notifyItemRangeRemoved( int positionStart, int itemCount ) {
+		if ( !canNotifyItemRanges() ) {
+			notifyDataSetChanged();
+			return;
+		}
+		for ( int i = mItemRangeObservers.size() - 1; i >= 0; i-- ) {
+			mItemRangeObservers.get( i ).onItemRangeRemoved( positionStart, itemCount );
+		}
+	}
+
+	public final void notifyItemMoved( int fromPosition, int toPosition ) {
+		if ( !canNotifyItemRanges() ) {
+			notifyDataSetChanged();
+			return;
+		}
+		for ( int i = mItemRangeObservers.size() - 1; i >= 0; i-- ) {
+			mItemRangeObservers.get( i ).onItemMoved( fromPosition, toPosition );
+		}
+	}
+
+	/**
+	 * Fine grained notifications can only be used if every data set observer is also an item range observer
+	 */
+	private boolean canNotifyItemRanges() {
+		return mPlainDataSetObservers.isEmpty();
+	}
+}
@@ -0,0 +1,15 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Optional interface for a {@link android.widget.ListAdapter} able to notify which items have changed, instead of just telling
+ * that the whole data set has changed. When the adapter of an {@link AbsHListView} implements this interface the list only
+ * rebinds the visible children which are affected by a change, and keeps all the others.
+ *
+ * @see ItemRangeAdapter
+ */
+public interface ItemRangeNotifier {
+
+	void registerItemRangeObserver( ItemRangeObserver observer );
+
+	void unregisterItemRangeObserver( ItemRangeObserver observer );
+}
@@ -0,0 +1,36 @@
+package it.sephiroth.android.library.widget;
+
+/**
+ * Receives fine grained notifications about the changes in an adapter content.<br />
+ * Positions are expressed in the adapter coordinates at the time of the notification, that is after all the previous
+ * notifications have been applied.
+ *
+ * @see ItemRangeNotifier
+ * @see ItemRangeAdapter
+ */
+public interface ItemRangeObserver {
+
+	/**
+	 * <var>itemCount</var> items starting at <var>positionStart</var> have changed, their views need to be bound again.
+	 * 
+	 * @param payload
+	 *           describes what changed in the items, null if the items need to be bound entirely
+	 * @see PayloadBindingAdapter
+	 */
+	void onItemRangeChanged( int positionStart, int itemCount, Object payload );
+
+	/**
+	 * <var>itemCount</var> items have been inserted at <var>positionStart</var>.
+	 */
+	void onItemRangeInserted( int positionStart, int itemCount );
+
+	/**
+	 * <var>itemCount</var> items starting at <var>positionStart</var> have been removed.
+	 */
+	void onItemRangeRemoved( int positionStart, int itemCount );
+
+	/**
+	 * The item at <var>fromPosition</var> has been moved to <var>toPosition</var>.
+	 */
+	void onItemMoved( int fromPosition, int toPosition );
+}
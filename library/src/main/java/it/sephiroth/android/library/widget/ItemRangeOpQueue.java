@@ -0,0 +1,139 @@
+package it.sephiroth.android.library.widget;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Item range changes received by a list and not yet applied to its children.<br />
+ * The operations are kept in the order they have been notified, and {@link #transform(int, boolean[])} replays them on a position
+ * which was valid before the first of them.
+ */
+class ItemRangeOpQueue {
+
+	static final int OP_CHANGE = 0;
+	static final int OP_INSERT = 1;
+	static final int OP_REMOVE = 2;
+	static final int OP_MOVE = 3;
+
+	/**
+	 * Returned by {@link #transform(int, boolean[])} for a position which has been removed
+	 */
+	static final int REMOVED = -1;
+
+	/**
+	 * Past this number of pending operations it's cheaper to handle the change as a whole data set change
+	 */
+	static final int MAX_SIZE = 32;
+
+	/** op, first argument, second argument */
+	private int[] mOps = new int[3 * 4];
+
+	/** payload of every {@link #OP_CHANGE} operation */
+	private Object[] mPayloads = new Object[4];
+	private int mSize;
+
+	void add( int op, int arg1, int arg2 ) {
+		add( op, arg1, arg2, null );
+	}
+
+	void add( int op, int arg1, int arg2, Object payload ) {
+		if ( mSize * 3 == mOps.length ) {
+			mOps = Arrays.copyOf( mOps, mOps.length * 2 );
+			mPayloads = Arrays.copyOf( mPayloads, mPayloads.length * 2 );
+		}
+		final int index = mSize * 3;
+		mOps[index] = op;
+		mOps[index + 1] = arg1;
+		mOps[index + 2] = arg2;
+		mPayloads[mSize] = payload;
+		mSize++;
+	}
+
+	int size() {
+		return mSize;
+	}
+
+	boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	boolean isFull() {
+		return mSize >= MAX_SIZE;
+	}
+
+	void clear() {
+		Arrays.fill( mPayloads, 0, mSize, null );
+		mSize = 0;
+	}
+
+	/**
+	 * Applies the pending operations to <var>position</var>.
+	 * 
+	 * @param changed
+	 *           if not null, its first element is set to true if the item has been changed
+	 * @return the new position of the item, or {@link #REMOVED}
+	 * @see #transform(int, boolean[], List)
+	 */
+	int transform( int position, boolean[] changed ) {
+		return transform( position, changed, null );
+	}
+
+	/**
+	 * Applies the pending operations to <var>position</var>.
+	 * 
+	 * @param changed
+	 *           if not null, its first element is set to true if the item has been changed
+	 * @param payloads
+	 *           if not null, receives the payloads of all the changes of the item, null for the changes without payload
+	 * @return the new position of the item, or {@link #REMOVED}
+	 */
+	int transform( int position, boolean[] changed, List<Object> payloads ) {
+		if ( changed != null ) {
+			changed[0] = false;
+		}
+
+		for ( int i = 0; i < mSize && position != REMOVED; i++ ) {
+			final int index = i * 3;
+			final int arg1 = mOps[index + 1];
+			final int arg2 = mOps[index + 2];
+
+			switch ( mOps[index] ) {
+				case OP_CHANGE:
+					if ( position >= arg1 && position < arg1 + arg2 ) {
+						if ( changed != null ) {
+							changed[0] = true;
+						}
+						if ( payloads != null ) {
+							payloads.add( mPayloads[i] );
+						}
+					}
+					break;
+
+				case OP_INSERT:
+					if ( position >= arg1 ) {
+						position += arg2;
+					}
+					break;
+
+				case OP_REMOVE:
+					if ( position >= arg1 + arg2 ) {
+						position -= arg2;
+					} else if ( position >= arg1 ) {
+						position = REMOVED;
+					}
+					break;
+
+				case OP_MOVE:
+					if ( position == arg1 ) {
+						position = arg2;
+					} else if ( arg1 < arg2 && position > arg1 && position <= arg2 ) {
+						position--;
+					} else if ( arg2 < arg1 && position >= arg2 && position < arg1 ) {
+						position++;
+					}
+					break;
+			}
+		}
+		return position;
+	}
+}
@@ -0,0 +1,106 @@
+package it.sephiroth.android.library.widget;
+
+import java.util.Arrays;
+
+import it.sephiroth.android.library.util.LongIntHashMap;
+
+/**
+ * Remembers the measured width of the adapter items, so that a variable width list needs to measure every item only once.<br />
+ * Widths are keyed by adapter position or, when the adapter has stable ids, by item id. A
+ * {@link android.database.DataSetObserver#onChanged()} drops all of them, since any item content may have changed. Id keyed
+ * widths survive the item range insertions, removals and moves, and only the items notified as changed are dropped.
+ */
+class ItemWidthCache {
+
+	/**
+	 * Returned by {@link #get(int, long)} when the width of the item is not known
+	 */
+	static final int UNKNOWN = -1;
+
+	private int[] mWidthByPosition = new int[0];
+	private final LongIntHashMap mWidthById = new LongIntHashMap();
+	private boolean mKeyedById;
+
+	/**
+	 * Sets whether widths are keyed by item id rather than by position. Switching mode drops all the cached widths.
+	 */
+	void setKeyedById( boolean value ) {
+		if ( mKeyedById != value ) {
+			mKeyedById = value;
+			clear();
+		}
+	}
+
+	boolean isKeyedById() {
+		return mKeyedById;
+	}
+
+	/**
+	 * @param position
+	 *           adapter position of the item
+	 * @param id
+	 *           adapter id of the item, only used when the cache is keyed by id
+	 * @return the cached width or {@link #UNKNOWN}
+	 */
+	int get( int position, long id ) {
+		if ( mKeyedById ) {
+			if ( id == AdapterView.INVALID_COL_ID ) {
+				return UNKNOWN;
+			}
+			return mWidthById.get( id, UNKNOWN );
+		}
+		if ( position < 0 || position >= mWidthByPosition.length ) {
+			return UNKNOWN;
+		}
+		return mWidthByPosition[position];
+	}
+
+	void put( int position, long id, int width ) {
+		if ( mKeyedById ) {
+			if ( id != AdapterView.INVALID_COL_ID ) {
+				mWidthById.put( id, width );
+			}
+			return;
+		}
+		if ( position < 0 ) {
+			return;
+		}
+		if ( position >= mWidthByPosition.length ) {
+			int size = Math.max( 16, mWidthByPosition.length );
+			while ( size <= position ) {
+				size <<= 1;
+			}
+			final int oldSize = mWidthByPosition.length;
+			mWidthByPosition = Arrays.copyOf( mWidthByPosition, size );
+			Arrays.fill( mWidthByPosition, oldSize, size, UNKNOWN );
+		}
+		mWidthByPosition[position] = width;
+	}
+
+	/**
+	 * Items have been inserted, removed or moved. Position keyed widths are no longer valid, id keyed ones still are.
+	 */
+	void onItemsMoved() {
+		if ( !mKeyedById ) {
+			clear();
+		}
+	}
+
+	/**
+	 * The content of an item changed, its width has to be measured again
+	 */
+	void remove( int position, long id ) {
+		if ( mKeyedById ) {
+			if ( id != AdapterView.INVALID_COL_ID ) {
+				mWidthById.remove( id );
+			}
+		} else if ( position >= 0 && position < mWidthByPosition.length ) {
+			mWidthByPosition[position] = UNKNOWN;
+		}
+	}
+
+	void clear() {
+		Arrays.fill( mWidthByPosition, UNKNOWN );
+		mWidthById.clear();
+	}
+}
@@ -0,0 +1,185 @@
+package it.sephiroth.android.library.widget;
+
+import it.sephiroth.android.library.util.Histogram;
+
+/**
+ * Timings and recycling counts of the frames drawn by an {@link AbsHListView}, collected when an
+ * {@link AbsHListView.OnFrameMetricsListener} is set.<br />
+ * The per frame values describe the last frame and are valid only during
+ * {@link AbsHListView.OnFrameMetricsListener#onFrameMetrics(AbsHListView, ListFrameMetrics)}. The histograms aggregate all the
+ * frames since the listener has been set or {@link #reset()} has been called. Timings are in nanoseconds and inclusive:
+ * {@link #TRACK_MOTION_SCROLL} contains {@link #FILL_GAP}, which contains {@link #OBTAIN_VIEW} and {@link #SETUP_CHILD}.
+ */
+public class ListFrameMetrics {
+
+	/** Time spent scrolling the children, including filling the gaps */
+	public static final int TRACK_MOTION_SCROLL = 0;
+
+	/** Time spent adding the items scrolled into view */
+	public static final int FILL_GAP = 1;
+
+	/** Time spent obtaining item views, mostly in the adapter getView */
+	public static final int OBTAIN_VIEW = 2;
+
+	/** Time spent measuring and laying out the item views */
+	public static final int SETUP_CHILD = 3;
+
+	/** Time spent drawing the list, including dispatchDraw */
+	public static final int DRAW = 4;
+
+	/** Time from the first recorded work of the frame to the end of the draw */
+	public static final int FRAME = 5;
+
+	static final int TIMING_COUNT = 6;
+
+	private final long[] mNanos = new long[TIMING_COUNT];
+	private final Histogram[] mHistograms = new Histogram[TIMING_COUNT];
+
+	private long mFrameStartNanos;
+
+	private int mViewsCreated;
+	private int mViewsRecycled;
+	private int mScrapHits;
+	private boolean mOverBudget;
+
+	private long mFrameCount;
+	private long mFramesOverBudget;
+	private long mTotalViewsCreated;
+	private long mTotalViewsRecycled;
+	private long mTotalScrapHits;
+
+	ListFrameMetrics() {
+		for ( int i = 0; i < TIMING_COUNT; i++ ) {
+			mHistograms[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * @return the time spent in the last frame for one of the timings, like {@link #OBTAIN_VIEW}
+	 */
+	public long getNanos( int timing ) {
+		return mNanos[timing];
+	}
+
+	/**
+	 * @return the number of item views the adapter created in the last frame
+	 */
+	public int getViewsCreated() {
+		return mViewsCreated;
+	}
+
+	/**
+	 * @return the number of scrap views the adapter reused in the last frame
+	 */
+	public int getViewsRecycled() {
+		return mViewsRecycled;
+	}
+
+	/**
+	 * @return the number of scrap views reused in the last frame which previously displayed the same position
+	 */
+	public int getScrapHits() {
+		return mScrapHits;
+	}
+
+	/**
+	 * @return true if the last frame took longer than a display frame
+	 */
+	public boolean isOverBudget() {
+		return mOverBudget;
+	}
+
+	/**
+	 * @return the distribution of one of the timings, like {@link #FRAME}, over all the frames which did that kind of work
+	 */
+	public Histogram getHistogram( int timing ) {
+		return mHistograms[timing];
+	}
+
+	public long getFrameCount() {
+		return mFrameCount;
+	}
+
+	public long getFramesOverBudget() {
+		return mFramesOverBudget;
+	}
+
+	public long getTotalViewsCreated() {
+		return mTotalViewsCreated;
+	}
+
+	public long getTotalViewsRecycled() {
+		return mTotalViewsRecycled;
+	}
+
+	public long getTotalScrapHits() {
+		return mTotalScrapHits;
+	}
+
+	/**
+	 * Clears the aggregated values
+	 */
+	public void reset() {
+		for ( int i = 0; i < TIMING_COUNT; i++ ) {
+			mHistograms[i].reset();
+		}
+		mFrameCount = 0;
+		mFramesOverBudget = 0;
+		mTotalViewsCreated = 0;
+		mTotalViewsRecycled = 0;
+		mTotalScrapHits = 0;
+	}
+
+	/**
+	 * Records that some work of kind <var>timing</var> started at <var>startNanos</var> and ended now
+	 */
+	void addTiming( int timing, long startNanos ) {
+		mNanos[timing] += System.nanoTime() - startNanos;
+		if ( mFrameStartNanos == 0 || startNanos < mFrameStartNanos ) {
+			mFrameStartNanos = startNanos;
+		}
+	}
+
+	void addViewObtained( boolean recycled, boolean scrapHit ) {
+		if ( recycled ) {
+			mViewsRecycled++;
+		} else {
+			mViewsCreated++;
+		}
+		if ( scrapHit ) {
+			mScrapHits++;
+		}
+	}
+
+	/**
+	 * Completes the frame once it has been drawn, the per frame values can then be read until {@link #clearFrame()}
+	 */
+	void endFrame( long frameIntervalNanos ) {
+		mNanos[FRAME] = mFrameStartNanos != 0 ? System.nanoTime() - mFrameStartNanos : mNanos[DRAW];
+		mOverBudget = mNanos[FRAME] > frameIntervalNanos;
+
+		for ( int i = 0; i < TIMING_COUNT; i++ ) {
+			if ( mNanos[i] > 0 ) {
+				mHistograms[i].record( mNanos[i] );
+			}
+		}
+		mFrameCount++;
+		if ( mOverBudget ) {
+			mFramesOverBudget++;
+		}
+		mTotalViewsCreated += mViewsCreated;
+		mTotalViewsRecycled += mViewsRecycled;
+		mTotalScrapHits += mScrapHits;
+	}
+
+	void clearFrame() {
+		for ( int i = 0; i < TIMING_COUNT; i++ ) {
+			mNanos[i] = 0;
+		}
+		mFrameStartNanos = 0;
+		mViewsCreated = 0;
+		mViewsRecycled = 0;
+		mScrapHits = 0;
+		mOverBudget = false;
+	}
+}
@@ -314,16 +314,27 @@ public class OverScroller {
      * animation is not yet finished.
      */
     public boolean computeScrollOffset() {
+        return computeScrollOffset(AnimationUtils.currentAnimationTimeMillis());
+    }
+
+    /**
+     * Same as {@link #computeScrollOffset()}, for the given animation time
+     * instead of the current one. Pass the start time of the frame being
+     * drawn so that the position matches the time the frame is displayed.
+     *
+     * @param time animation time in milliseconds, in the
+     *             {@link AnimationUtils#currentAnimationTimeMillis()} time base
+     */
+    public boolean computeScrollOffset(long time) {
         if (isFinished()) {
             return false;
         }
 
         switch (mMode) {
             case SCROLL_MODE:
-                long time = AnimationUtils.currentAnimationTimeMillis();
                 // Any scroller can be used for time, since they were started
                 // together in scroll mode. We use X here.
-                final long elapsedTime = time - mScrollerX.mStartTime;
+                final long elapsedTime = Math.max(0, time - mScrollerX.mStartTime);
 
                 final int duration = mScrollerX.mDuration;
                 if (elapsedTime < duration) {
@@ -344,7 +355,7 @@ public class OverScroller {
 
             case FLING_MODE:
                 if (!mScrollerX.mFinished) {
-                    if (!mScrollerX.update()) {
+                    if (!mScrollerX.update(time)) {
                         if (!mScrollerX.continueWhenFinished()) {
                             mScrollerX.finish();
                         }
@@ -352,7 +363,7 @@ public class OverScroller {
                 }
 
                 if (!mScrollerY.mFinished) {
-                    if (!mScrollerY.update()) {
+                    if (!mScrollerY.update(time)) {
                         if (!mScrollerY.continueWhenFinished()) {
                             mScrollerY.finish();
                         }
@@ -925,8 +936,11 @@ public class OverScroller {
          * reached.
          */
         boolean update() {
-            final long time = AnimationUtils.currentAnimationTimeMillis();
-            final long currentTime = time - mStartTime;
+            return update(AnimationUtils.currentAnimationTimeMillis());
+        }
+
+        boolean update(long time) {
+            final long currentTime = Math.max(0, time - mStartTime);
 
             if (currentTime > mDuration) {
                 return false;
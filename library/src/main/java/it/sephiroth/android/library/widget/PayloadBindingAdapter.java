@@ -0,0 +1,32 @@
+package it.sephiroth.android.library.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.List;
+
+/**
+ * Optional interface for an {@link ItemRangeAdapter} which can update a view already displaying an item with only the parts that
+ * changed, instead of binding all of it again in {@link android.widget.Adapter#getView(int, View, ViewGroup)}.<br />
+ * The payloads are the ones passed to {@link ItemRangeAdapter#notifyItemChanged(int, Object)} and
+ * {@link ItemRangeAdapter#notifyItemRangeChanged(int, int, Object)}. If an item has also been changed without a payload, or its
+ * view is no longer on screen, the list calls {@link android.widget.Adapter#getView(int, View, ViewGroup)} as usual.
+ */
+public interface PayloadBindingAdapter {
+
+	/**
+	 * Updates <var>view</var>, which is currently displaying the item at <var>position</var>, according to <var>payloads</var>.
+	 * 
+	 * @param position
+	 *           adapter position of the item
+	 * @param view
+	 *           the view displaying the item
+	 * @param parent
+	 *           the list
+	 * @param payloads
+	 *           all the payloads notified for the item since the last layout, in the order they have been notified
+	 * @return true if the update cannot change the size of the view nor the layout of its content (for instance a new text in a
+	 *         fixed size TextView, or a color change): the list will then neither measure nor lay out the view again
+	 */
+	boolean bindView( int position, View view, ViewGroup parent, List<Object> payloads );
+}
@@ -0,0 +1,90 @@
+package it.sephiroth.android.library.widget;
+
+import android.os.Looper;
+
+import java.util.Arrays;
+
+/**
+ * Array backed stack of reusable objects, confined to the UI thread.<br />
+ * Acquiring and releasing are O(1) and don't lock: objects requested from any other thread are simply not pooled. The pool
+ * counts how many requests found an object to reuse and how many had to allocate one.
+ */
+final class PositionPool<T> {
+
+	static final int DEFAULT_MAX_POOL_SIZE = 32;
+
+	private static final Thread sUiThread = Looper.getMainLooper().getThread();
+
+	private Object[] mPool;
+	private int mSize;
+
+	private int mHitCount;
+	private int mMissCount;
+
+	PositionPool( int maxSize ) {
+		mPool = new Object[maxSize];
+	}
+
+	/**
+	 * @return a pooled object, or null if the pool is empty or the caller is not on the UI thread
+	 */
+	@SuppressWarnings ( "unchecked" )
+	T acquire() {
+		if ( Thread.currentThread() != sUiThread ) {
+			return null;
+		}
+		if ( mSize > 0 ) {
+			mHitCount++;
+			final int index = --mSize;
+			final T instance = (T) mPool[index];
+			mPool[index] = null;
+			return instance;
+		}
+		mMissCount++;
+		return null;
+	}
+
+	/**
+	 * Returns an object to the pool.
+	 *
+	 * @return false if the pool is full or the caller is not on the UI thread
+	 */
+	boolean release( T instance ) {
+		if ( mSize < mPool.length && Thread.currentThread() == sUiThread ) {
+			mPool[mSize++] = instance;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the maximum number of pooled objects, 0 disables pooling. Must be called from the UI thread.
+	 */
+	void setMaxSize( int maxSize ) {
+		if ( maxSize < 0 ) {
+			throw new IllegalArgumentException( "maxSize must be >= 0" );
+		}
+		if ( maxSize < mSize ) {
+			Arrays.fill( mPool, maxSize, mSize, null );
+			mSize = maxSize;
+		}
+		mPool = Arrays.copyOf( mPool, maxSize );
+	}
+
+	int getMaxSize() {
+		return mPool.length;
+	}
+
+	int getHitCount() {
+		return mHitCount;
+	}
+
+	int getMissCount() {
+		return mMissCount;
+	}
+
+	void resetCounters() {
+		mHitCount = 0;
+		mMissCount = 0;
+	}
+}
@@ -0,0 +1,156 @@
+package it.sephiroth.android.library.widget;
+
+import java.util.Arrays;
+
+/**
+ * Counters of the views going through the recycler of an {@link AbsHListView}, for every adapter view type.<br />
+ * The counters are updated as the list scrolls and lays out, and are cleared when an adapter is set or {@link #reset()} is
+ * called. They help telling whether memory growth comes from the scrap heap, from views kept
+ * because of their transient state, or from an adapter which doesn't reuse its convert views.
+ *
+ * @see AbsHListView#getRecycleBinStats()
+ * @see AbsHListView#dumpRecycleBin(java.io.PrintWriter)
+ */
+public class RecycleBinStats {
+
+	static final int SCRAP_SIZE = 0;
+	static final int PEAK_SCRAP_SIZE = 1;
+	static final int CREATED = 2;
+	static final int REUSED = 3;
+	static final int EVICTED = 4;
+	static final int SKIPPED = 5;
+	static final int TRANSIENT_RETAINED = 6;
+	static final int TRANSIENT_RELEASED = 7;
+	static final int TRANSIENT_DROPPED = 8;
+	private static final int COUNTER_COUNT = 9;
+
+	private static final String[] COUNTER_NAMES = { "scrap", "peak", "created", "reused", "evicted", "skipped",
+			"transientRetained", "transientReleased", "transientDropped" };
+
+	/** counters of every view type, COUNTER_COUNT per type */
+	private int[] mCounters = new int[COUNTER_COUNT];
+	private int mViewTypeCount = 1;
+
+	void setViewTypeCount( int viewTypeCount ) {
+		mViewTypeCount = viewTypeCount;
+		mCounters = new int[viewTypeCount * COUNTER_COUNT];
+	}
+
+	void increment( int viewType, int counter ) {
+		if ( viewType >= 0 && viewType < mViewTypeCount ) {
+			mCounters[viewType * COUNTER_COUNT + counter]++;
+		}
+	}
+
+	void set( int viewType, int counter, int value ) {
+		if ( viewType >= 0 && viewType < mViewTypeCount ) {
+			mCounters[viewType * COUNTER_COUNT + counter] = value;
+		}
+	}
+
+	private int get( int viewType, int counter ) {
+		if ( viewType < 0 || viewType >= mViewTypeCount ) {
+			return 0;
+		}
+		return mCounters[viewType * COUNTER_COUNT + counter];
+	}
+
+	public int getViewTypeCount() {
+		return mViewTypeCount;
+	}
+
+	/**
+	 * @return the number of views of the given type currently in the scrap heap
+	 */
+	public int getScrapSize( int viewType ) {
+		return get( viewType, SCRAP_SIZE );
+	}
+
+	/**
+	 * @return the largest number of views of the given type held by the scrap heap at the same time
+	 */
+	public int getPeakScrapSize( int viewType ) {
+		return get( viewType, PEAK_SCRAP_SIZE );
+	}
+
+	/**
+	 * @return how many views of the given type the adapter created, either with no convert view or ignoring the one it has been
+	 *         given
+	 */
+	public int getCreatedCount( int viewType ) {
+		return get( viewType, CREATED );
+	}
+
+	/**
+	 * @return how many times the adapter reused the convert view it has been given
+	 */
+	public int getReusedCount( int viewType ) {
+		return get( viewType, REUSED );
+	}
+
+	/**
+	 * @return how many views have been evicted from the scrap heap because it was over its size limit
+	 */
+	public int getEvictedCount( int viewType ) {
+		return get( viewType, EVICTED );
+	}
+
+	/**
+	 * @return how many views could not be recycled and have been removed from the list instead
+	 */
+	public int getSkippedCount( int viewType ) {
+		return get( viewType, SKIPPED );
+	}
+
+	/**
+	 * @return how many views have been kept aside because they had transient state
+	 */
+	public int getTransientRetainedCount( int viewType ) {
+		return get( viewType, TRANSIENT_RETAINED );
+	}
+
+	/**
+	 * @return how many views kept for their transient state have been let go once it ended
+	 */
+	public int getTransientReleasedCount( int viewType ) {
+		return get( viewType, TRANSIENT_RELEASED );
+	}
+
+	/**
+	 * @return how many views kept for their transient state have been dropped by a data set change
+	 */
+	public int getTransientDroppedCount( int viewType ) {
+		return get( viewType, TRANSIENT_DROPPED );
+	}
+
+	/**
+	 * Clears all the counters but the current scrap sizes
+	 */
+	public void reset() {
+		for ( int type = 0; type < mViewTypeCount; type++ ) {
+			final int offset = type * COUNTER_COUNT;
+			final int scrapSize = mCounters[offset + SCRAP_SIZE];
+			Arrays.fill( mCounters, offset, offset + COUNTER_COUNT, 0 );
+			mCounters[offset + SCRAP_SIZE] = scrapSize;
+			mCounters[offset + PEAK_SCRAP_SIZE] = scrapSize;
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder b = new StringBuilder( "RecycleBinStats{" );
+		for ( int type = 0; type < mViewTypeCount; type++ ) {
+			if ( type > 0 ) {
+				b.append( ", " );
+			}
+			b.append( "type " ).append( type ).append( ": " );
+			for ( int i = 0; i < COUNTER_COUNT; i++ ) {
+				if ( i > 0 ) {
+					b.append( ' ' );
+				}
+				b.append( COUNTER_NAMES[i] ).append( '=' ).append( mCounters[type * COUNTER_COUNT + i] );
+			}
+		}
+		return b.append( '}' ).toString();
+	}
+}
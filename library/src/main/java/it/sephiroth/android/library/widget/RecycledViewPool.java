@@ -0,0 +1,124 @@
+package it.sephiroth.android.library.widget;
+
+import android.support.v4.util.SparseArrayCompat;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of item views which can be shared by several {@link AbsHListView} instances, for instance a number of horizontal
+ * carousels displaying the same kind of items.<br />
+ * Every list using the pool keeps only a few views of every type in its own scrap heap, by default
+ * {@link #DEFAULT_MAX_LOCAL_SCRAP}: the other scrapped views are moved to the pool, and the lists look into the pool before
+ * asking the adapter to inflate a new view. The pool limits therefore bound the recycled views held by all the lists, however
+ * many they are. Views which don't fit in the pool are dropped. Views in the pool are not attached to any list.<br />
+ * All the lists sharing a pool must use adapters with compatible view types: a view created for type <var>n</var> by one
+ * adapter must be convertible by the other adapters for the same type.<br />
+ * The pool is not thread safe and must only be used from the UI thread.
+ *
+ * @see AbsHListView#setRecycledViewPool(RecycledViewPool)
+ */
+public class RecycledViewPool {
+
+	/**
+	 * Default maximum number of views kept for every view type
+	 */
+	public static final int DEFAULT_MAX_SCRAP = 5;
+
+	/**
+	 * Default maximum number of views of every type kept in the scrap heap of each list using the pool
+	 *
+	 * @see AbsHListView#setRecycledViewPool(RecycledViewPool, int)
+	 */
+	public static final int DEFAULT_MAX_LOCAL_SCRAP = 2;
+
+	private final SparseArrayCompat<ArrayList<View>> mScrap = new SparseArrayCompat<ArrayList<View>>();
+
+	private final SparseIntArray mMaxScrap = new SparseIntArray();
+
+	/**
+	 * Sets the maximum number of views of the given type kept in the pool. Views in excess are dropped.
+	 *
+	 * @param viewType
+	 *           adapter view type
+	 * @param max
+	 *           maximum number of views, 0 to never pool the given type
+	 */
+	public void setMaxRecycledViews( int viewType, int max ) {
+		if ( max < 0 ) {
+			throw new IllegalArgumentException( "max must be >= 0" );
+		}
+		mMaxScrap.put( viewType, max );
+
+		final ArrayList<View> scrap = mScrap.get( viewType );
+		if ( scrap != null ) {
+			while ( scrap.size() > max ) {
+				scrap.remove( scrap.size() - 1 );
+			}
+		}
+	}
+
+	/**
+	 * @return the maximum number of views of the given type kept in the pool
+	 */
+	public int getMaxRecycledViews( int viewType ) {
+		return mMaxScrap.get( viewType, DEFAULT_MAX_SCRAP );
+	}
+
+	/**
+	 * @return the number of views of the given type currently in the pool
+	 */
+	public int getRecycledViewCount( int viewType ) {
+		final ArrayList<View> scrap = mScrap.get( viewType );
+		return scrap != null ? scrap.size() : 0;
+	}
+
+	/**
+	 * Removes a view of the given type from the pool.
+	 *
+	 * @return the view, or null if the pool has no view of the given type
+	 */
+	public View getRecycledView( int viewType ) {
+		final ArrayList<View> scrap = mScrap.get( viewType );
+		if ( scrap != null && !scrap.isEmpty() ) {
+			return scrap.remove( scrap.size() - 1 );
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a view to the pool. The view must not have a parent.
+	 *
+	 * @return false if the pool is full for the given type and the view has not been added
+	 */
+	public boolean putRecycledView( int viewType, View view ) {
+		if ( view.getParent() != null ) {
+			throw new IllegalArgumentException( "view already has a parent" );
+		}
+
+		ArrayList<View> scrap = mScrap.get( viewType );
+		if ( scrap == null ) {
+			scrap = new ArrayList<View>();
+			mScrap.put( viewType, scrap );
+		}
+
+		if ( scrap.size() >= getMaxRecycledViews( viewType ) ) {
+			return false;
+		}
+
+		// the next list using this view may measure it with a different spec
+		view.forceLayout();
+		scrap.add( view );
+		return true;
+	}
+
+	/**
+	 * Drops all the views in the pool
+	 */
+	public void clear() {
+		for ( int i = 0; i < mScrap.size(); i++ ) {
+			mScrap.valueAt( i ).clear();
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package it.sephiroth.android.library.widget;
+
+import android.view.View;
+
+import java.util.Arrays;
+import java.util.List;
+
+import it.sephiroth.android.library.util.LongIntHashMap;
+
+/**
+ * The scrap views of a single view type.<br />
+ * Views are stored in slots linked in the order they have been scrapped, and a primitive map from the position a view has been
+ * scrapped from to its slot gives O(1) access to the view previously used for the same position. Views scrapped from the same
+ * position are chained from the most recent one, so that every one of them can be found by position. All the insertions and
+ * removals are O(1): when there is no view for the requested position the most recently scrapped one is returned, and evictions
+ * remove the least recently scrapped one.
+ */
+final class ScrapPile {
+
+	static final int NO_SLOT = -1;
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private View[] mViews = new View[INITIAL_CAPACITY];
+	private int[] mPositions = new int[INITIAL_CAPACITY];
+
+	/** toward the least recently scrapped view */
+	private int[] mPrev = new int[INITIAL_CAPACITY];
+
+	/** toward the most recently scrapped view, also links the free slots */
+	private int[] mNext = new int[INITIAL_CAPACITY];
+
+	/** toward the previous view scrapped from the same position */
+	private int[] mOlderSamePosition = new int[INITIAL_CAPACITY];
+
+	/** toward the next view scrapped from the same position, NO_SLOT for the one in mSlotByPosition */
+	private int[] mNewerSamePosition = new int[INITIAL_CAPACITY];
+
+	private int mOldest = NO_SLOT;
+	private int mNewest = NO_SLOT;
+	private int mFree = NO_SLOT;
+
+	/** slots in [0, mUsedSlots) have been handed out at least once */
+	private int mUsedSlots;
+	private int mSize;
+
+	private final LongIntHashMap mSlotByPosition = new LongIntHashMap();
+
+	private int mHitCount;
+	private int mMissCount;
+
+	int size() {
+		return mSize;
+	}
+
+	boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	/**
+	 * Adds a view scrapped from the given position. It becomes the most recently scrapped view.
+	 */
+	void add( View view, int position ) {
+		final int slot = obtainSlot();
+		mViews[slot] = view;
+		mPositions[slot] = position;
+
+		mPrev[slot] = mNewest;
+		mNext[slot] = NO_SLOT;
+		if ( mNewest != NO_SLOT ) {
+			mNext[mNewest] = slot;
+		} else {
+			mOldest = slot;
+		}
+		mNewest = slot;
+		mSize++;
+
+		// a more recent view for the same position replaces the previous one in the map, which is chained to it
+		final int older = mSlotByPosition.get( position, NO_SLOT );
+		mOlderSamePosition[slot] = older;
+		mNewerSamePosition[slot] = NO_SLOT;
+		if ( older != NO_SLOT ) {
+			mNewerSamePosition[older] = slot;
+		}
+		mSlotByPosition.put( position, slot );
+	}
+
+	/**
+	 * Removes and returns the view scrapped from <var>position</var> if there is one, the most recently scrapped view otherwise.
+	 * Counts a hit or a miss accordingly.
+	 *
+	 * @return the view, or null if the pile is empty
+	 */
+	View retrieve( int position ) {
+		int slot = mSlotByPosition.get( position, NO_SLOT );
+		if ( slot != NO_SLOT ) {
+			mHitCount++;
+		} else {
+			mMissCount++;
+			slot = mNewest;
+		}
+		return slot != NO_SLOT ? removeSlot( slot ) : null;
+	}
+
+	/**
+	 * Removes and returns the least recently scrapped view, or null if the pile is empty.
+	 */
+	View removeOldest() {
+		return mOldest != NO_SLOT ? removeSlot( mOldest ) : null;
+	}
+
+	/**
+	 * Removes and returns the most recently scrapped view, or null if the pile is empty.
+	 */
+	View removeNewest() {
+		return mNewest != NO_SLOT ? removeSlot( mNewest ) : null;
+	}
+
+	/**
+	 * @return the slot of the least recently scrapped view, {@link #NO_SLOT} if the pile is empty
+	 */
+	int oldestSlot() {
+		return mOldest;
+	}
+
+	/**
+	 * @return the slot of the view scrapped after the one in <var>slot</var>, or {@link #NO_SLOT}
+	 */
+	int nextSlot( int slot ) {
+		return mNext[slot];
+	}
+
+	View viewAt( int slot ) {
+		return mViews[slot];
+	}
+
+	/**
+	 * Adds all the views in this pile to <var>views</var>, least recently scrapped first
+	 */
+	void addTo( List<View> views ) {
+		for ( int slot = mOldest; slot != NO_SLOT; slot = mNext[slot] ) {
+			views.add( mViews[slot] );
+		}
+	}
+
+	/**
+	 * @return how many times {@link #retrieve(int)} found the view scrapped from the requested position
+	 */
+	int getHitCount() {
+		return mHitCount;
+	}
+
+	/**
+	 * @return how many times {@link #retrieve(int)} did not find the view scrapped from the requested position
+	 */
+	int getMissCount() {
+		return mMissCount;
+	}
+
+	void resetCounters() {
+		mHitCount = 0;
+		mMissCount = 0;
+	}
+
+	private View removeSlot( int slot ) {
+		final View view = mViews[slot];
+		final int prev = mPrev[slot];
+		final int next = mNext[slot];
+
+		if ( prev != NO_SLOT ) {
+			mNext[prev] = next;
+		} else {
+			mOldest = next;
+		}
+		if ( next != NO_SLOT ) {
+			mPrev[next] = prev;
+		} else {
+			mNewest = prev;
+		}
+
+		final int older = mOlderSamePosition[slot];
+		final int newer = mNewerSamePosition[slot];
+		if ( newer != NO_SLOT ) {
+			mOlderSamePosition[newer] = older;
+		} else if ( older != NO_SLOT ) {
+			// the previous view scrapped from the same position can be found by position again
+			mSlotByPosition.put( mPositions[slot], older );
+		} else {
+			mSlotByPosition.remove( mPositions[slot] );
+		}
+		if ( older != NO_SLOT ) {
+			mNewerSamePosition[older] = newer;
+		}
+
+		mViews[slot] = null;
+		mNext[slot] = mFree;
+		mFree = slot;
+		mSize--;
+		return view;
+	}
+
+	private int obtainSlot() {
+		if ( mFree != NO_SLOT ) {
+			final int slot = mFree;
+			mFree = mNext[slot];
+			return slot;
+		}
+
+		if ( mUsedSlots == mViews.length ) {
+			final int capacity = mUsedSlots << 1;
+			mViews = Arrays.copyOf( mViews, capacity );
+			mPositions = Arrays.copyOf( mPositions, capacity );
+			mPrev = Arrays.copyOf( mPrev, capacity );
+			mNext = Arrays.copyOf( mNext, capacity );
+			mOlderSamePosition = Arrays.copyOf( mOlderSamePosition, capacity );
+			mNewerSamePosition = Arrays.copyOf( mNewerSamePosition, capacity );
+		}
+		return mUsedSlots++;
+	}
+}